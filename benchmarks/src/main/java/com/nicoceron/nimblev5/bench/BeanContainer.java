@@ -0,0 +1,182 @@
+package com.nicoceron.nimblev5.bench;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough dependency injection to run the application's beans outside a container:
+ * one instance per class, {@code @Inject} fields filled recursively, {@code @PersistenceContext}
+ * fields set to the benchmark's EntityManager, {@code @PersistenceUnit} fields to the factory of
+ * that unit if the benchmark has one (null otherwise), {@code @PostConstruct} invoked, and
+ * {@code Event<T>} fields delivering synchronously to {@code @Observes} methods of beans
+ * created so far. Transactional observers run at once, as if every transaction committed:
+ * {@code IN_PROGRESS} first, then the completion phases; {@code AFTER_FAILURE} never runs.
+ * Interceptors and {@code @Resource} are not emulated.
+ */
+final class BeanContainer {
+
+    private static final TransactionPhase[] DELIVERY_ORDER = {TransactionPhase.IN_PROGRESS,
+            TransactionPhase.BEFORE_COMPLETION, TransactionPhase.AFTER_COMPLETION, TransactionPhase.AFTER_SUCCESS};
+
+    private final EntityManager entityManager;
+    private final Map<String, EntityManagerFactory> factories;
+    private final Map<Class<?>, Object> beans = new LinkedHashMap<>();
+
+    BeanContainer(EntityManager entityManager, Map<String, EntityManagerFactory> factories) {
+        this.entityManager = entityManager;
+        this.factories = factories;
+    }
+
+    synchronized <T> T get(Class<T> type) {
+        Object bean = beans.get(type);
+        if (bean == null) {
+            bean = create(type);
+        }
+        return type.cast(bean);
+    }
+
+    synchronized void close() {
+        List<Object> created = new ArrayList<>(beans.values());
+        for (int i = created.size() - 1; i >= 0; i--) {
+            invokeAnnotated(created.get(i), PreDestroy.class);
+        }
+        beans.clear();
+    }
+
+    private Object create(Class<?> type) {
+        Object bean;
+        try {
+            java.lang.reflect.Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            bean = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+        }
+        beans.put(type, bean);
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (field.isAnnotationPresent(PersistenceContext.class)) {
+                    set(field, bean, entityManager);
+                } else if (field.isAnnotationPresent(PersistenceUnit.class)) {
+                    set(field, bean, factories.get(field.getAnnotation(PersistenceUnit.class).unitName()));
+                } else if (field.isAnnotationPresent(Inject.class)) {
+                    set(field, bean, resolve(field));
+                }
+            }
+        }
+        invokeAnnotated(bean, PostConstruct.class);
+        return bean;
+    }
+
+    private Object resolve(Field field) {
+        Class<?> type = field.getType();
+        if (type == Event.class) {
+            return eventFor(field);
+        }
+        if (type.isInterface()) {
+            return null; // e.g. Instance<T>: not needed by the benchmarked code paths
+        }
+        return get(type);
+    }
+
+    private Event<?> eventFor(Field field) {
+        return (Event<?>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[]{Event.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "fire":
+                    deliver(args[0]);
+                    return null;
+                case "select":
+                    return proxy;
+                case "toString":
+                    return "Event<" + ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0].getTypeName() + ">";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException("Event." + method.getName());
+            }
+        });
+    }
+
+    private synchronized void deliver(Object event) {
+        for (TransactionPhase phase : DELIVERY_ORDER) {
+            for (Object bean : new ArrayList<>(beans.values())) {
+                for (Class<?> c = bean.getClass(); c != Object.class; c = c.getSuperclass()) {
+                    for (Method method : c.getDeclaredMethods()) {
+                        Observes observes = method.getParameterCount() == 1 ? observes(method) : null;
+                        if (observes != null && observes.during() == phase
+                                && method.getParameterTypes()[0].isInstance(event)) {
+                            invoke(bean, method, event);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Events are fired without qualifiers, so qualified observers (e.g. @Initialized) never match.
+    private static Observes observes(Method method) {
+        Annotation[] annotations = method.getParameterAnnotations()[0];
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == Observes.class) {
+                return annotations.length == 1 ? (Observes) annotation : null;
+            }
+        }
+        return null;
+    }
+
+    private static void invokeAnnotated(Object bean, Class<? extends Annotation> annotation) {
+        for (Class<?> c = bean.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(annotation) && method.getParameterCount() == 0) {
+                    invoke(bean, method);
+                }
+            }
+        }
+    }
+
+    private static void invoke(Object bean, Method method, Object... args) {
+        try {
+            method.setAccessible(true);
+            method.invoke(bean, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void set(Field field, Object bean, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(bean, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.nicoceron.nimblev5.bench;
+
+import com.nicoceron.nimblev5.dao.ReplicaRouting;
+import com.nicoceron.nimblev5.dto.NewTask;
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.service.TaskService;
+import com.nicoceron.nimblev5.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The application's {@code NimblePU} mappings on a private in-memory H2 database, plus the
+ * beans wired against it. Each benchmark call runs in its own resource-local transaction,
+ * standing in for the container-managed transaction of the {@code @Stateless} services.
+ * <p>
+ * With a replica, {@code NimbleReadPU} gets a second in-memory database of its own. Nothing
+ * copies data into it: a benchmark fills it through {@link #replicaEntityManagerFactory()} to
+ * play the replication, and runs reads in {@link #readOnly} since interceptors are not emulated.
+ * Routing also needs {@code -Dnimble.replica.enabled=true} and a heartbeat (see
+ * {@code ReplicaRouting}).
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+    private static final int SEED_BATCH = 5_000;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManagerFactory replicaEntityManagerFactory;
+    private final EntityManager entityManager;
+    private final BeanContainer beans;
+
+    public BenchmarkContext() {
+        this(false);
+    }
+
+    public BenchmarkContext(boolean withReplica) {
+        String database = "nimble" + DATABASE_COUNTER.incrementAndGet();
+        this.entityManagerFactory = Persistence.createEntityManagerFactory("NimblePU", h2Properties(database));
+        this.replicaEntityManagerFactory = withReplica
+                ? Persistence.createEntityManagerFactory("NimbleReadPU", h2Properties(database + "replica")) : null;
+        this.entityManager = entityManagerFactory.createEntityManager();
+        this.beans = new BeanContainer(entityManager, replicaEntityManagerFactory != null
+                ? Collections.singletonMap("NimbleReadPU", replicaEntityManagerFactory) : Collections.emptyMap());
+    }
+
+    private static Map<String, Object> h2Properties(String database) {
+        Map<String, Object> properties = new HashMap<>();
+        // Make the unit resource-local on H2; the entity mappings stay the same.
+        properties.put("jakarta.persistence.transactionType", "RESOURCE_LOCAL");
+        properties.put("jakarta.persistence.jtaDataSource", "");
+        properties.put("jakarta.persistence.nonJtaDataSource", "");
+        properties.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        properties.put("jakarta.persistence.schema-generation.database.action", "create");
+        properties.put("eclipselink.target-database", "org.eclipse.persistence.platform.database.H2Platform");
+        properties.put("eclipselink.logging.level", "WARNING");
+        properties.put("eclipselink.logging.level.sql", "WARNING");
+        return properties;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return beans.get(type);
+    }
+
+    public EntityManager entityManager() {
+        return entityManager;
+    }
+
+    /** The replica database's unit, or null without a replica. */
+    public EntityManagerFactory replicaEntityManagerFactory() {
+        return replicaEntityManagerFactory;
+    }
+
+    /** Runs {@code work} as a {@code @ReadOnly} operation would. */
+    public <T> T readOnly(Callable<T> work) {
+        return inTransaction(() -> bean(ReplicaRouting.class).readOnly(work));
+    }
+
+    public <T> T inTransaction(Callable<T> work) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            T result = work.call();
+            transaction.commit();
+            return result;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+        } finally {
+            entityManager.clear(); // a container-managed persistence context ends with the transaction
+        }
+    }
+
+    public User createUser(String username, String password) {
+        return inTransaction(() -> bean(UserService.class).registerUser(username, username + "@example.com", password));
+    }
+
+    /**
+     * Inserts {@code count} tasks for the user through the bulk create path and returns their IDs.
+     */
+    public List<Long> createTasks(Long userId, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        TaskPriority[] priorities = TaskPriority.values();
+        long now = System.currentTimeMillis();
+        for (int from = 0; from < count; from += SEED_BATCH) {
+            List<NewTask> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + SEED_BATCH); i++) {
+                NewTask task = new NewTask();
+                task.setUserId(userId);
+                task.setTitle("Task " + i);
+                task.setDescription("Benchmark task number " + i);
+                task.setDueDate(i % 5 == 0 ? null : new Date(now + i * 60_000L));
+                task.setPriority(priorities[i % priorities.length]);
+                batch.add(task);
+            }
+            ids.addAll(inTransaction(() -> bean(TaskService.class).createTasks(batch)));
+        }
+        return ids;
+    }
+
+    @Override
+    public void close() {
+        beans.close();
+        entityManager.close();
+        entityManagerFactory.close();
+        if (replicaEntityManagerFactory != null) {
+            replicaEntityManagerFactory.close();
+        }
+    }
+}
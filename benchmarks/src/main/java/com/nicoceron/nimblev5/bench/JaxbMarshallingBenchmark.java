@@ -0,0 +1,122 @@
+package com.nicoceron.nimblev5.bench;
+
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.TaskPage;
+import com.nicoceron.nimblev5.dto.TaskView;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JAXB marshalling of the objects the SOAP endpoints return, without the database.
+ * Responses are wrapped in a JAXBElement the way JAX-WS does for document/literal operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JaxbMarshallingBenchmark {
+
+    private static final String NAMESPACE = "http://ws.nimblev5.nicoceron.com/";
+
+    @Param({"50", "1000"})
+    public int pageSize;
+
+    private JAXBContext jaxbContext;
+    private User user;
+    private Task task;
+    private TaskView taskView;
+    private TaskPage page;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JAXBException {
+        jaxbContext = JAXBContext.newInstance(Task.class, User.class, TaskView.class, TaskPage.class);
+        user = new User();
+        user.setUserId(42L);
+        user.setUsername("bench");
+        user.setEmail("bench@example.com");
+        user.setCreatedDate(new Date());
+
+        List<TaskView> views = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            views.add(view(task(i)));
+        }
+        task = task(0);
+        taskView = views.get(0);
+        page = new TaskPage(views, "opaque-next-page-token");
+        buffer = new ByteArrayOutputStream(1 << 20);
+    }
+
+    private Task task(int i) {
+        Task t = new Task();
+        t.setTaskId((long) i);
+        t.setUser(user);
+        t.setTitle("Task " + i);
+        t.setDescription("A task description that is about as long as a typical one, number " + i);
+        t.setDueDate(new Date());
+        t.setPriority(TaskPriority.values()[i % 3]);
+        t.setStatus(TaskStatus.values()[i % 3]);
+        t.setCreatedDate(new Date());
+        t.setLastModifiedDate(new Date());
+        return t;
+    }
+
+    private static TaskView view(Task t) {
+        return new TaskView(t.getTaskId(), t.getUser().getUserId(), t.getTitle(), t.getDescription(), t.getDueDate(),
+                t.getPriority(), t.getStatus(), t.getCreatedDate(), t.getLastModifiedDate(), 1L);
+    }
+
+    private <T> int marshal(String element, Class<T> type, T value) throws JAXBException {
+        buffer.reset();
+        Marshaller marshaller = jaxbContext.createMarshaller(); // JAX-WS creates one per message too
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        marshaller.marshal(new JAXBElement<>(new QName(NAMESPACE, element), type, value), buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int marshalUser() throws JAXBException {
+        return marshal("return", User.class, user);
+    }
+
+    @Benchmark
+    public int marshalTask() throws JAXBException {
+        return marshal("return", Task.class, task);
+    }
+
+    @Benchmark
+    public int marshalTaskView() throws JAXBException {
+        return marshal("return", TaskView.class, taskView);
+    }
+
+    @Benchmark
+    public int marshalTaskPage() throws JAXBException {
+        return marshal("return", TaskPage.class, page);
+    }
+}
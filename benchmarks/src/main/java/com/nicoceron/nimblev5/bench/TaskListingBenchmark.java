@@ -0,0 +1,106 @@
+package com.nicoceron.nimblev5.bench;
+
+import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskPage;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import com.nicoceron.nimblev5.dto.TaskSortOrder;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing a user's tasks at different list sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class TaskListingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int tasksPerUser;
+
+    private BenchmarkContext context;
+    private TaskService taskService;
+    private TaskDao taskDao;
+    private Long userId;
+    private TaskSearch search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        taskService = context.bean(TaskService.class);
+        taskDao = context.bean(TaskDao.class);
+        userId = context.createUser("list-bench", "correct horse battery staple").getUserId();
+        context.createTasks(userId, tasksPerUser);
+
+        search = new TaskSearch();
+        search.setUserId(userId);
+        search.setStatuses(Arrays.asList(TaskStatus.PENDING, TaskStatus.IN_PROGRESS));
+        search.setSortOrder(TaskSortOrder.PRIORITY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> findTasksByUserId() {
+        return context.inTransaction(() -> taskService.findTasksByUserId(userId));
+    }
+
+    @Benchmark
+    public List<Task> daoFindByUserId() {
+        return context.inTransaction(() -> taskDao.findByUserId(userId));
+    }
+
+    @Benchmark
+    public List<TaskView> findTaskViewsByUserId() {
+        return context.inTransaction(() -> taskService.findTaskViewsByUserId(userId));
+    }
+
+    @Benchmark
+    public TaskPage findFirstTaskPage() {
+        return context.inTransaction(() -> taskService.findTaskPageByUserId(userId, null, null));
+    }
+
+    /** Filtered, priority-ordered first page through the cached Criteria query shape. */
+    @Benchmark
+    public TaskPage searchTasks() {
+        return context.inTransaction(() -> taskService.searchTasks(search));
+    }
+
+    /** Steady-state dashboard poll: served from the in-memory aggregate after the first call. */
+    @Benchmark
+    public TaskSummary getTaskSummary() {
+        return context.inTransaction(() -> taskService.getTaskSummary(userId));
+    }
+
+    /** Cold path: the GROUP BY query that builds the aggregate. */
+    @Benchmark
+    public List<Object[]> daoCountGroupedForSummary() {
+        return context.inTransaction(() -> taskDao.countByUserIdGroupedByStatusPriorityAndDueDate(userId));
+    }
+}
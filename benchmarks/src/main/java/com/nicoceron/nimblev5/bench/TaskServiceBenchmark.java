@@ -0,0 +1,124 @@
+package com.nicoceron.nimblev5.bench;
+
+import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskPatchResult;
+import com.nicoceron.nimblev5.service.TaskService;
+import com.nicoceron.nimblev5.service.TaskWriteBehindQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-task operations of TaskService and TaskDao against a user with 1000 tasks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskServiceBenchmark {
+
+    private static final int TASKS = 1_000;
+
+    private BenchmarkContext context;
+    private TaskService taskService;
+    private TaskDao taskDao;
+    private Long userId;
+    private List<Long> taskIds;
+    private long[] versions; // last known version of each task, for patchTaskStatus
+    private TaskWriteBehindQueue writeBehind;
+    private int round;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        taskService = context.bean(TaskService.class);
+        taskDao = context.bean(TaskDao.class);
+        writeBehind = context.bean(TaskWriteBehindQueue.class);
+        userId = context.createUser("task-bench", "correct horse battery staple").getUserId();
+        taskIds = context.createTasks(userId, TASKS);
+        versions = new long[taskIds.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = taskDao.findById(taskIds.get(i)).get().getVersion();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long nextTaskId() {
+        next = (next + 1) % taskIds.size();
+        return taskIds.get(next);
+    }
+
+    @Benchmark
+    public Task createTask() {
+        return context.inTransaction(() -> taskService.createTask(userId, "New task", "Created by the benchmark",
+                new Timestamp(System.currentTimeMillis()), TaskPriority.MEDIUM));
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskById() {
+        Long taskId = nextTaskId();
+        return context.inTransaction(() -> taskService.findTaskById(taskId));
+    }
+
+    @Benchmark
+    public Optional<Task> daoFindById() {
+        Long taskId = nextTaskId();
+        return context.inTransaction(() -> taskDao.findById(taskId));
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        Long taskId = nextTaskId();
+        TaskStatus status = next % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.PENDING;
+        return context.inTransaction(() -> taskService.updateTask(taskId, "Updated task", "Updated by the benchmark",
+                null, TaskPriority.HIGH, status));
+    }
+
+    @Benchmark
+    public TaskPatchResult patchTaskStatus() {
+        Long taskId = nextTaskId();
+        int index = next;
+        TaskStatus status = versions[index] % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.PENDING;
+        TaskPatchResult result = context.inTransaction(() -> taskService.patchTask(taskId, versions[index],
+                null, null, null, null, status));
+        versions[index] = result.getTask().getVersion();
+        return result;
+    }
+
+    /** 100 status toggles through the write-behind queue and one flush, vs. 100 updateTask transactions. */
+    @Benchmark
+    public int queueAndFlush100StatusUpdates() {
+        TaskStatus status = ++round % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.PENDING;
+        for (int i = 0; i < 100; i++) {
+            taskService.queueTaskUpdate(nextTaskId(), status, null);
+        }
+        List<TaskWriteBehindQueue.Update> batch = writeBehind.nextBatch();
+        int written = context.inTransaction(() -> taskService.applyQueuedUpdates(batch));
+        writeBehind.written(batch);
+        return written;
+    }
+}
@@ -0,0 +1,107 @@
+package com.nicoceron.nimblev5.bench;
+
+import com.nicoceron.nimblev5.dao.UserDao;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.service.UserCache;
+import com.nicoceron.nimblev5.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login and user lookups. Login cost is dominated by the password hash, so its cost is a
+ * parameter; run with {@code -p passwordIterations=1000} to look at everything around it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"310000"})
+    public int passwordIterations;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private UserDao userDao;
+    private UserCache userCache;
+    private Long[] userIds;
+    private int next;
+    private int registered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("nimble.password.iterations", Integer.toString(passwordIterations));
+        context = new BenchmarkContext();
+        userService = context.bean(UserService.class);
+        userDao = context.bean(UserDao.class);
+        userCache = context.bean(UserCache.class);
+        userIds = new Long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = context.createUser(username(i), PASSWORD).getUserId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String username(int i) {
+        return "user" + i;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % USERS;
+        return next;
+    }
+
+    @Benchmark
+    public Optional<User> loginUser() {
+        String username = username(nextIndex());
+        return context.inTransaction(() -> userService.loginUser(username, PASSWORD));
+    }
+
+    @Benchmark
+    public Optional<User> findUserByIdCached() {
+        Long userId = userIds[nextIndex()];
+        return context.inTransaction(() -> userService.findUserById(userId));
+    }
+
+    @Benchmark
+    public Optional<User> findUserByIdUncached() {
+        Long userId = userIds[nextIndex()];
+        userCache.invalidate(userId);
+        return context.inTransaction(() -> userService.findUserById(userId));
+    }
+
+    @Benchmark
+    public Optional<User> daoFindByUsername() {
+        String username = username(nextIndex());
+        return context.inTransaction(() -> userDao.findByUsername(username));
+    }
+
+    @Benchmark
+    public User registerUser() {
+        String username = "new" + (registered++);
+        return context.inTransaction(() -> userService.registerUser(username, username + "@example.com", PASSWORD));
+    }
+}
@@ -0,0 +1,24 @@
+package com.nicoceron.nimblev5;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the {@code /admin} endpoints: a request is authorized if its {@code X-Admin-Token} header
+ * matches the {@code nimble.admin.token} system property. Without that property nothing is.
+ */
+final class AdminAccess {
+
+    private static final String TOKEN = System.getProperty("nimble.admin.token");
+
+    private AdminAccess() {
+    }
+
+    static boolean isAuthorized(HttpServletRequest request) {
+        String token = request.getHeader("X-Admin-Token");
+        return TOKEN != null && !TOKEN.isEmpty() && token != null
+                && MessageDigest.isEqual(TOKEN.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
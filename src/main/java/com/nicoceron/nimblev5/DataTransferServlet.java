@@ -0,0 +1,160 @@
+package com.nicoceron.nimblev5;
+
+import com.nicoceron.nimblev5.service.DataTransferService;
+import com.nicoceron.nimblev5.service.TransferRecords;
+import com.nicoceron.nimblev5.util.RecordFormat;
+import jakarta.ejb.EJBException;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk export and import through {@link DataTransferService}, for backup and migration tooling.
+ * <ul>
+ * <li>{@code GET /admin/transfer?entity=users|tasks&format=ndjson|csv} streams the whole table.</li>
+ * <li>{@code POST} to the same URL with such a stream as the request body imports it, and answers
+ * with the number of rows and the throughput.</li>
+ * </ul>
+ * Both require the admin token (see {@link AdminAccess}): exports include password hashes. The
+ * response of an export is committed as soon as the first rows are written, so an export that
+ * fails halfway cannot change its status code; it ends early and the failure is logged (and
+ * counted in {@code nimble_transfer_failures_total}).
+ */
+@WebServlet(name = "dataTransferServlet", value = "/admin/transfer")
+public class DataTransferServlet extends HttpServlet {
+
+    private static final Logger LOG = Logger.getLogger(DataTransferServlet.class.getName());
+
+    @Inject
+    private DataTransferService transfers;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!AdminAccess.isAuthorized(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "A valid X-Admin-Token is required.");
+            return;
+        }
+        RecordFormat format;
+        boolean users;
+        try {
+            format = RecordFormat.of(request.getParameter("format"));
+            users = isUsers(request.getParameter("entity"));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        String entity = users ? "users" : "tasks";
+        response.setContentType(format.getContentType() + "; charset=utf-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + entity + "." + format.name().toLowerCase() + "\"");
+        response.setHeader("Cache-Control", "no-store");
+
+        RecordFormat.RecordWriter writer = format.newWriter(response.getOutputStream(),
+                users ? TransferRecords.USER_COLUMNS : TransferRecords.TASK_COLUMNS);
+        try {
+            if (users) {
+                transfers.exportUsers(user -> write(writer, TransferRecords.values(user)));
+            } else {
+                transfers.exportTasks(task -> write(writer, TransferRecords.values(task)));
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            LOG.log(Level.FINE, "Export of " + entity + " aborted by the client", e);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Export of " + entity + " failed", e);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!AdminAccess.isAuthorized(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "A valid X-Admin-Token is required.");
+            return;
+        }
+        long start = System.nanoTime();
+        long rows;
+        try {
+            RecordFormat format = RecordFormat.of(request.getParameter("format"));
+            RecordFormat.RecordReader reader = format.newReader(request.getInputStream());
+            rows = isUsers(request.getParameter("entity"))
+                    ? transfers.importUsers(new RecordIterator<>(reader, TransferRecords::user))
+                    : transfers.importTasks(new RecordIterator<>(reader, TransferRecords::task));
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof EJBException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IllegalArgumentException) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, cause.getMessage());
+                return;
+            }
+            LOG.log(Level.SEVERE, "Import failed", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Import failed: " + cause.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        response.setContentType("text/plain; charset=utf-8");
+        response.getWriter().println("imported=" + rows + " seconds=" + Math.round(seconds * 1000) / 1000.0
+                + " rowsPerSecond=" + Math.round(seconds > 0 ? rows / seconds : 0));
+    }
+
+    private static boolean isUsers(String entity) {
+        if ("users".equals(entity)) {
+            return true;
+        }
+        if ("tasks".equals(entity)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown entity: " + entity + " (expected users or tasks)");
+    }
+
+    private static void write(RecordFormat.RecordWriter writer, Object[] values) {
+        try {
+            writer.write(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Parses records as they are requested, so the request body is never held in memory. */
+    private static final class RecordIterator<T> implements Iterator<T> {
+
+        private final RecordFormat.RecordReader reader;
+        private final BiFunction<Map<String, String>, Long, T> parser;
+        private Map<String, String> next;
+
+        RecordIterator(RecordFormat.RecordReader reader, BiFunction<Map<String, String>, Long, T> parser) {
+            this.reader = reader;
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = reader.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map<String, String> record = next;
+            next = null;
+            return parser.apply(record, reader.getRecordNumber());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nicoceron.nimblev5;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Exposes all {@link MetricsSource} beans in the Prometheus text format.
+ */
+@WebServlet(name = "metricsServlet", value = "/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    @Inject
+    @Any
+    private Instance<MetricsSource> sources;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        PrintWriter out = response.getWriter();
+        MetricsWriter writer = new MetricsWriter(out);
+        for (MetricsSource source : sources) {
+            source.writeMetrics(writer);
+        }
+        out.flush();
+    }
+}
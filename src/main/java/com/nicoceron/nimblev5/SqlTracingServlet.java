@@ -0,0 +1,64 @@
+package com.nicoceron.nimblev5;
+
+import com.nicoceron.nimblev5.dao.QueryTracing;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Shows and changes the {@link QueryTracing} settings without a redeploy. GET returns the current
+ * settings; POST sets any of the form parameters {@code enabled}, {@code sampleRate},
+ * {@code slowThresholdMillis} and {@code logParameters}, and {@code reset=true} clears the
+ * per-shape statistics.
+ * <p>
+ * Changes require the admin token (see {@link AdminAccess}); without it the settings are read-only.
+ */
+@WebServlet(name = "sqlTracingServlet", value = "/admin/sql-tracing")
+public class SqlTracingServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeSettings(response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!AdminAccess.isAuthorized(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "A valid X-Admin-Token is required.");
+            return;
+        }
+        QueryTracing tracing = QueryTracing.get();
+        try {
+            String sampleRate = request.getParameter("sampleRate");
+            String slowThresholdMillis = request.getParameter("slowThresholdMillis");
+            String enabled = request.getParameter("enabled");
+            String logParameters = request.getParameter("logParameters");
+            if (sampleRate != null) tracing.setSampleRate(Double.parseDouble(sampleRate));
+            if (slowThresholdMillis != null) tracing.setSlowThresholdMillis(Long.parseLong(slowThresholdMillis));
+            if (enabled != null) tracing.setEnabled(Boolean.parseBoolean(enabled));
+            if (logParameters != null) tracing.setLogParameters(Boolean.parseBoolean(logParameters));
+            if (Boolean.parseBoolean(request.getParameter("reset"))) tracing.reset();
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        getServletContext().log("SQL tracing settings changed by " + request.getRemoteAddr());
+        writeSettings(response);
+    }
+
+    private static void writeSettings(HttpServletResponse response) throws IOException {
+        QueryTracing tracing = QueryTracing.get();
+        response.setContentType("text/plain; charset=utf-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+        out.println("enabled=" + tracing.isEnabled());
+        out.println("sampleRate=" + tracing.getSampleRate());
+        out.println("slowThresholdMillis=" + tracing.getSlowThresholdMillis());
+        out.println("logParameters=" + tracing.isLogParameters());
+        out.flush();
+    }
+}
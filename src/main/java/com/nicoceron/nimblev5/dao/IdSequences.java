@@ -0,0 +1,35 @@
+package com.nicoceron.nimblev5.dao;
+
+import jakarta.persistence.EntityManager;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.server.Server;
+
+/**
+ * Moves an ID sequence past IDs that were written without it, such as imported rows. The
+ * sequence is stepped with NEXTVAL (in the platform's syntax) until it passes the ID, which works
+ * on any Oracle version and needs no DDL (ALTER SEQUENCE ... RESTART would commit the
+ * transaction). Each step skips a whole preallocation block, so this takes
+ * (highest ID - sequence value) / INCREMENT BY round trips.
+ * <p>
+ * The blocks this node had already preallocated are dropped as well. Other nodes keep theirs:
+ * they must not have created rows since before the import, or must be restarted.
+ */
+final class IdSequences {
+
+    private IdSequences() {
+    }
+
+    /** Advances {@code sequence} until NEXTVAL is above {@code id}; returns how many steps that took. */
+    static int advancePast(EntityManager entityManager, String sequence, long id) {
+        Server session = JpaHelper.getServerSession(entityManager.getEntityManagerFactory());
+        String nextValue = session.getPlatform().buildSelectQueryForSequenceObject(sequence, null).getSQLString();
+        int steps = 0;
+        long next;
+        do {
+            next = ((Number) entityManager.createNativeQuery(nextValue).getSingleResult()).longValue();
+            steps++;
+        } while (next <= id);
+        session.getSequencingControl().initializePreallocated(sequence);
+        return steps;
+    }
+}
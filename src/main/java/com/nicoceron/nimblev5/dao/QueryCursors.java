@@ -0,0 +1,43 @@
+package com.nicoceron.nimblev5.dao;
+
+import jakarta.persistence.Query;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ScrollableCursor;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs a query through an EclipseLink scrollable cursor, for full-table scans that must not
+ * hold the whole result in memory. The result set is forward-only (a scroll-insensitive one is
+ * cached client-side by the Oracle driver) and rows arrive {@code fetchSize} at a time.
+ * <p>
+ * Meant for projection queries: their rows are neither registered in the persistence context nor
+ * put in the shared cache, so nothing accumulates however many rows are read. An entity query
+ * would register every row with the transaction and need periodic clearing.
+ */
+final class QueryCursors {
+
+    private QueryCursors() {
+    }
+
+    /** Passes every result of {@code query} to {@code action} and returns how many there were. */
+    @SuppressWarnings("unchecked")
+    static <T> long forEach(Query query, int fetchSize, Consumer<T> action) {
+        query.setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                .setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+        ScrollableCursor cursor = (ScrollableCursor) query.getSingleResult();
+        long count = 0;
+        try {
+            while (cursor.hasNext()) {
+                action.accept((T) cursor.next());
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+}
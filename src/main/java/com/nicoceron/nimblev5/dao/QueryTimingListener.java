@@ -0,0 +1,93 @@
+package com.nicoceron.nimblev5.dao;
+
+import org.eclipse.persistence.internal.databaseaccess.DatabaseCall;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.queries.Call;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Times every JDBC statement EclipseLink executes and feeds {@link QueryTracing}. Registered
+ * through {@code eclipselink.session-event-listener} in persistence.xml, in place of EclipseLink's
+ * own SQL logging, which logs every statement or none.
+ * <p>
+ * Sampled statements are logged at INFO to {@code com.nicoceron.nimblev5.sql.trace}, statements
+ * over the slow threshold at WARNING to {@code com.nicoceron.nimblev5.sql.slow}, so the slow-query
+ * log can be routed to a file of its own. With JDBC batch writing, a batched INSERT/UPDATE is
+ * timed when it is added to the batch; the batch itself runs at the end of the flush.
+ */
+public class QueryTimingListener extends SessionEventAdapter {
+
+    private static final Logger TRACE = Logger.getLogger("com.nicoceron.nimblev5.sql.trace");
+    private static final Logger SLOW = Logger.getLogger("com.nicoceron.nimblev5.sql.slow");
+
+    // JDBC calls do not nest, so one start time per thread is enough
+    private static final ThreadLocal<long[]> START = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void preExecuteCall(SessionEvent event) {
+        if (QueryTracing.get().isEnabled()) {
+            START.get()[0] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void postExecuteCall(SessionEvent event) {
+        long[] start = START.get();
+        if (start[0] == 0) {
+            return; // timing was switched on during the call
+        }
+        long nanos = System.nanoTime() - start[0];
+        start[0] = 0;
+
+        QueryTracing tracing = QueryTracing.get();
+        Call call = event.getCall();
+        DatabaseQuery query = call instanceof DatabaseCall ? ((DatabaseCall) call).getQuery() : event.getQuery();
+        String sql = call instanceof DatabaseCall ? ((DatabaseCall) call).getSQLString() : null;
+        String jpql = query != null ? query.getJPQLString() : null;
+        String shape = jpql != null ? jpql : sql != null ? sql : String.valueOf(call);
+        tracing.record(shape, nanos, rowCount(event.getResult()));
+
+        boolean slow = tracing.isSlow(nanos);
+        if (slow || tracing.sample()) {
+            String message = (nanos / 1_000) / 1e3 + " ms, " + describe(call, sql, tracing.isLogParameters())
+                    + (jpql != null ? " [" + jpql + "]" : "");
+            if (slow) {
+                SLOW.warning(message);
+            } else {
+                TRACE.info(message);
+            }
+        }
+    }
+
+    /** Rows read or modified by a call, or -1 for a cursor, whose rows are fetched later. */
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof List) {
+            return ((List<?>) result).size();
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue(); // update count
+        }
+        return result instanceof AbstractRecord ? 1 : -1;
+    }
+
+    private static String describe(Call call, String sql, boolean withParameters) {
+        if (sql == null) {
+            return String.valueOf(call);
+        }
+        if (withParameters) {
+            List<?> parameters = ((DatabaseCall) call).getParameters();
+            if (parameters != null && !parameters.isEmpty()) {
+                return sql + " bind => " + parameters;
+            }
+        }
+        return sql;
+    }
+}
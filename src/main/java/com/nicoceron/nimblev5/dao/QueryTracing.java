@@ -0,0 +1,142 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.metrics.LatencyHistogram;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings and per-shape statistics of the SQL timing done by {@link QueryTimingListener}.
+ * A shape is the JPQL string of the query that issued a statement or, for statements EclipseLink
+ * generates itself (flush DML, relationship loads), the SQL with its bind markers. At most
+ * {@code nimble.sql.maxShapes} shapes are tracked; statements of further shapes are counted
+ * under {@code (other)}.
+ * <p>
+ * The listener is created by EclipseLink, not CDI, so this is a plain process-wide singleton.
+ * Its settings start from system properties and can be changed at runtime through
+ * {@code /admin/sql-tracing}:
+ * <ul>
+ * <li>{@code nimble.sql.timing} - record timings and row counts at all (default true);</li>
+ * <li>{@code nimble.sql.sampleRate} - fraction of statements whose SQL is logged (default 0);</li>
+ * <li>{@code nimble.sql.slowThresholdMillis} - statements at least this slow go to the slow-query
+ * log (default 500, 0 disables);</li>
+ * <li>{@code nimble.sql.logParameters} - include bind values in logged statements (default false,
+ * as they include password hashes and task contents).</li>
+ * </ul>
+ */
+public final class QueryTracing {
+
+    static final String OTHER_SHAPE = "(other)";
+
+    private static final QueryTracing INSTANCE = new QueryTracing();
+
+    private final int maxShapes = Integer.getInteger("nimble.sql.maxShapes", 500);
+
+    private volatile boolean enabled = !"false".equals(System.getProperty("nimble.sql.timing"));
+    private volatile double sampleRate = Double.parseDouble(System.getProperty("nimble.sql.sampleRate", "0"));
+    private volatile long slowThresholdMillis = Long.getLong("nimble.sql.slowThresholdMillis", 500L);
+    private volatile boolean logParameters = Boolean.getBoolean("nimble.sql.logParameters");
+
+    private final ConcurrentMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+
+    static final class ShapeStats {
+
+        final LongAdder rows = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    private QueryTracing() {
+        setSampleRate(sampleRate);
+    }
+
+    public static QueryTracing get() { return INSTANCE; }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public double getSampleRate() { return sampleRate; }
+    public long getSlowThresholdMillis() { return slowThresholdMillis; }
+    public boolean isLogParameters() { return logParameters; }
+    public void setLogParameters(boolean logParameters) { this.logParameters = logParameters; }
+
+    public void setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        if (slowThresholdMillis < 0) {
+            throw new IllegalArgumentException("slowThresholdMillis must not be negative");
+        }
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    /** Records one statement; {@code rows} is negative when the statement's row count is unknown. */
+    void record(String shape, long nanos, long rows) {
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            stats = shapes.size() < maxShapes ? shapes.computeIfAbsent(shape, s -> new ShapeStats())
+                    : shapes.computeIfAbsent(OTHER_SHAPE, s -> new ShapeStats());
+        }
+        stats.latency.record(nanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+    }
+
+    /** True if a statement that took {@code nanos} belongs in the slow-query log. */
+    boolean isSlow(long nanos) {
+        long threshold = slowThresholdMillis;
+        if (threshold > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            slow.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /** True for the sampled fraction of statements, whose SQL is traced. */
+    boolean sample() {
+        double rate = sampleRate;
+        if (rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate)) {
+            sampled.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /** Forgets the per-shape statistics, e.g. before measuring a specific workload. */
+    public void reset() {
+        shapes.clear();
+    }
+
+    public void writeMetrics(MetricsWriter writer) {
+        List<Map.Entry<String, ShapeStats>> all = new ArrayList<>(shapes.entrySet());
+        Collections.sort(all, Comparator.comparing(Map.Entry::getKey));
+        writer.help("nimble_sql_timing_enabled", "gauge", "1 if SQL statements are being timed.");
+        writer.sample("nimble_sql_timing_enabled", enabled ? 1 : 0);
+        writer.help("nimble_sql_rows_total", "counter", "Rows returned or modified, by query shape.");
+        for (Map.Entry<String, ShapeStats> entry : all) {
+            writer.sample("nimble_sql_rows_total", "shape", entry.getKey(), entry.getValue().rows.sum());
+        }
+        writer.help("nimble_sql_latency_seconds", "summary", "JDBC execution time of SQL statements, by query shape.");
+        for (Map.Entry<String, ShapeStats> entry : all) {
+            writer.latency("nimble_sql_latency_seconds", "shape", entry.getKey(), entry.getValue().latency);
+        }
+        writer.help("nimble_sql_sampled_total", "counter", "Statements whose SQL was logged by sampling.");
+        writer.sample("nimble_sql_sampled_total", sampled.sum());
+        writer.help("nimble_sql_slow_total", "counter", "Statements written to the slow-query log.");
+        writer.sample("nimble_sql_slow_total", slow.sum());
+    }
+}
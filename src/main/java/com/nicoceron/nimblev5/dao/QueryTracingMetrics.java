@@ -0,0 +1,17 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Publishes the {@link QueryTracing} statistics on {@code /metrics}.
+ */
+@ApplicationScoped
+public class QueryTracingMetrics implements MetricsSource {
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        QueryTracing.get().writeMetrics(writer);
+    }
+}
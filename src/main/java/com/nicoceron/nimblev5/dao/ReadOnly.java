@@ -0,0 +1,21 @@
+package com.nicoceron.nimblev5.dao;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a business method that only reads: while it runs, DAO reads that go through
+ * {@link ReplicaRouting} may be served by the read replica. Never put it on a method that
+ * writes, or that reads in order to write.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ReadOnly {
+}
@@ -0,0 +1,22 @@
+package com.nicoceron.nimblev5.dao;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/** Runs {@link ReadOnly} methods in a {@link ReplicaRouting#readOnly read-only scope}. */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 10) // inside TimedInterceptor, so a replica retry is timed as one call
+public class ReadOnlyInterceptor {
+
+    @Inject
+    private ReplicaRouting routing;
+
+    @AroundInvoke
+    public Object route(InvocationContext context) throws Exception {
+        return routing.readOnly(context::proceed);
+    }
+}
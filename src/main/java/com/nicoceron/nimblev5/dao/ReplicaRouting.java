@@ -0,0 +1,257 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.domain.ReplicaHeartbeat;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.NonUniqueResultException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PersistenceUnit;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends reads of {@link ReadOnly} operations to the read replica ({@code NimbleReadPU}) when that
+ * cannot return data older than what the caller may already have seen. Off unless
+ * {@code nimble.replica.enabled} is set; everything else always reads from the primary.
+ * <p>
+ * A read about a user goes to the primary instead when
+ * <ul>
+ * <li>that user wrote within {@code nimble.replica.readYourWritesMillis} (default 15 s, never less
+ * than the lag limit), counted from the write and again from its commit, so a client reads its own
+ * writes; or</li>
+ * <li>the replica is not known to be within {@code nimble.replica.maxLagMillis} (default 10 s) of
+ * the primary. {@code ReplicaMonitor} stamps a heartbeat row on the primary every two seconds and
+ * reads it back from the replica; the age of the stamp found there is an upper bound of the lag
+ * (give or take clock skew between nodes). A measurement older than the limit counts as too
+ * much lag, so a stalled monitor falls back to the primary too.</li>
+ * </ul>
+ * Since a user's writes older than the window are within the lag limit, the replica has them.
+ * Like the in-memory caches, the window assumes all writes go through this process.
+ * <p>
+ * If a replica read fails, the operation is retried once on the primary and the replica is
+ * avoided until the next successful heartbeat.
+ */
+@ApplicationScoped
+public class ReplicaRouting implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaRouting.class.getName());
+
+    private static final int TRIM_INTERVAL = 1024; // writes between sweeps of expired windows
+
+    // The read-only scope of the current thread, if any
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private final boolean enabled = Boolean.getBoolean("nimble.replica.enabled");
+    private final long maxLagMillis = Long.getLong("nimble.replica.maxLagMillis", 10_000L);
+    private final long windowNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(Long.getLong("nimble.replica.readYourWritesMillis", 15_000L), maxLagMillis));
+
+    @PersistenceContext(unitName = "NimblePU")
+    private EntityManager primary;
+
+    @PersistenceUnit(unitName = "NimbleReadPU")
+    private EntityManagerFactory replicaFactory;
+
+    // userId -> System.nanoTime() until which that user reads from the primary
+    private final ConcurrentMap<Long, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger writesSinceTrim = new AtomicInteger();
+
+    private volatile long lagMillis = -1; // -1: unknown or replica unreachable
+    private volatile long lagMeasuredAt; // System.currentTimeMillis() of the last heartbeat check
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryForWindow = new LongAdder();
+    private final LongAdder primaryForLag = new LongAdder();
+    private final LongAdder primaryForMiss = new LongAdder();
+    private final LongAdder replicaErrors = new LongAdder();
+
+    /** The replica connection of one read-only operation, opened on first use. */
+    private static final class Scope {
+
+        EntityManager replica;
+        boolean failed;
+
+        void close() {
+            if (replica != null) {
+                replica.close();
+                replica = null;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && replicaFactory != null;
+    }
+
+    /**
+     * Runs {@code work} in a read-only scope, in which {@link #reader} may answer with the
+     * replica; see {@link ReadOnlyInterceptor}. Nested calls join the outer scope.
+     */
+    public <T> T readOnly(Callable<T> work) throws Exception {
+        if (SCOPE.get() != null || !isEnabled()) {
+            return work.call();
+        }
+        Scope scope = new Scope();
+        SCOPE.set(scope);
+        try {
+            return work.call();
+        } catch (PersistenceException e) {
+            if (scope.replica == null || e instanceof NoResultException || e instanceof NonUniqueResultException) {
+                throw e;
+            }
+            replicaErrors.increment();
+            lagMillis = -1; // back to the primary until the next heartbeat gets through
+            LOG.log(Level.WARNING, "Read from the replica failed; retrying on the primary", e);
+            scope.close();
+            scope.failed = true;
+            return work.call();
+        } finally {
+            SCOPE.remove();
+            scope.close();
+        }
+    }
+
+    /**
+     * The EntityManager for a read of {@code userId}'s data: the replica inside a read-only scope
+     * when the rules above allow it, {@code primaryEntityManager} otherwise. Pass null when the
+     * user is only known from the result, and check it with {@link #readOwned} instead.
+     */
+    public EntityManager reader(EntityManager primaryEntityManager, Long userId) {
+        Scope scope = SCOPE.get();
+        if (scope == null || scope.failed) {
+            return primaryEntityManager;
+        }
+        if (userId != null && isRecentWriter(userId)) {
+            primaryForWindow.increment();
+            return primaryEntityManager;
+        }
+        if (!isReplicaCurrent()) {
+            primaryForLag.increment();
+            return primaryEntityManager;
+        }
+        replicaReads.increment();
+        if (scope.replica == null) {
+            scope.replica = replicaFactory.createEntityManager();
+        }
+        return scope.replica;
+    }
+
+    /**
+     * A point read whose user is only known from the result. A replica answer is repeated on the
+     * primary if it is empty (the row may be too new for the replica) or belongs to a user in
+     * their read-your-writes window.
+     */
+    public <T> T readOwned(EntityManager primaryEntityManager, Function<EntityManager, T> read, Function<T, Long> owner) {
+        EntityManager entityManager = reader(primaryEntityManager, null);
+        T result = read.apply(entityManager);
+        if (entityManager != primaryEntityManager && (result == null || isRecentWriter(owner.apply(result)))) {
+            primaryForMiss.increment();
+            result = read.apply(primaryEntityManager);
+        }
+        return result;
+    }
+
+    /** Starts (or restarts) the user's read-your-writes window. */
+    public void markWritten(Long userId) {
+        if (userId == null || !isEnabled()) {
+            return;
+        }
+        recentWriters.put(userId, System.nanoTime() + windowNanos);
+        if (writesSinceTrim.incrementAndGet() >= TRIM_INTERVAL) {
+            writesSinceTrim.set(0);
+            long now = System.nanoTime();
+            for (Iterator<Map.Entry<Long, Long>> it = recentWriters.entrySet().iterator(); it.hasNext(); ) {
+                if (now - it.next().getValue() >= 0) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /** Stamps the heartbeat row on the primary, in the caller's transaction. */
+    public void writeHeartbeat() {
+        Date now = new Date();
+        int updated = primary.createQuery("UPDATE ReplicaHeartbeat h SET h.beatTime = :now WHERE h.id = :id")
+                .setParameter("now", now)
+                .setParameter("id", ReplicaHeartbeat.ID)
+                .executeUpdate();
+        if (updated == 0) {
+            primary.persist(new ReplicaHeartbeat(now));
+        }
+    }
+
+    /** Reads the heartbeat back from the replica and updates the lag estimate. */
+    public void measureLag() {
+        long previous = lagMillis;
+        EntityManager replica = replicaFactory.createEntityManager();
+        try {
+            ReplicaHeartbeat beat = replica.find(ReplicaHeartbeat.class, ReplicaHeartbeat.ID);
+            long now = System.currentTimeMillis();
+            lagMillis = beat != null ? Math.max(0, now - beat.getBeatTime().getTime()) : -1;
+            lagMeasuredAt = now;
+        } catch (PersistenceException e) {
+            lagMillis = -1;
+            if (previous != -1) {
+                LOG.log(Level.WARNING, "Replica heartbeat check failed; reading from the primary", e);
+            }
+        } finally {
+            replica.close();
+        }
+        if (previous <= maxLagMillis && lagMillis > maxLagMillis) {
+            LOG.warning("Replica lag " + lagMillis + " ms is over " + maxLagMillis + " ms; reading from the primary");
+        }
+    }
+
+    private boolean isRecentWriter(Long userId) {
+        Long until = recentWriters.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        recentWriters.remove(userId, until);
+        return false;
+    }
+
+    private boolean isReplicaCurrent() {
+        long lag = lagMillis;
+        return lag >= 0 && lag <= maxLagMillis && System.currentTimeMillis() - lagMeasuredAt <= maxLagMillis;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_replica_enabled", "gauge", "1 if read-only operations may read from the replica.");
+        writer.sample("nimble_replica_enabled", isEnabled() ? 1 : 0);
+        if (!isEnabled()) {
+            return;
+        }
+        writer.help("nimble_replica_lag_seconds", "gauge", "Replica lag from the last heartbeat check; -1 if unknown or unreachable.");
+        writer.sample("nimble_replica_lag_seconds", lagMillis < 0 ? -1 : lagMillis / 1000.0);
+        writer.help("nimble_replica_reads_total", "counter", "Reads in read-only operations, by where they went and why.");
+        writer.sample("nimble_replica_reads_total", "route", "replica", replicaReads.sum());
+        writer.sample("nimble_replica_reads_total", "route", "primary_window", primaryForWindow.sum());
+        writer.sample("nimble_replica_reads_total", "route", "primary_lag", primaryForLag.sum());
+        writer.sample("nimble_replica_reads_total", "route", "primary_miss", primaryForMiss.sum());
+        writer.help("nimble_replica_errors_total", "counter", "Replica reads that failed and were retried on the primary.");
+        writer.sample("nimble_replica_errors_total", replicaErrors.sum());
+        writer.help("nimble_replica_recent_writers", "gauge", "Users currently in their read-your-writes window.");
+        writer.sample("nimble_replica_recent_writers", recentWriters.size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.Timed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Timed
+@ApplicationScoped
+public class TaskArchiveDao {
+
+    @PersistenceContext(unitName = "NimblePU")
+    protected EntityManager entityManager;
+
+    /**
+     * Copies those of the given tasks that are still in {@code status} and last modified before
+     * {@code before} from TASK into TASK_ARCHIVE (INSERT ... SELECT), so archiving never loads the
+     * rows. Must run before the tasks are deleted, in the same transaction and with the same
+     * predicate.
+     */
+    public int insertFromTasks(Collection<Long> taskIds, TaskStatus status, Date before) {
+        int inserted = 0;
+        for (List<Long> chunk : TaskDao.nativeChunks(taskIds)) {
+            Query insert = entityManager.createNativeQuery("INSERT INTO TASK_ARCHIVE (task_id, user_id, title, description, due_date,"
+                            + " priority, priority_rank, status, version, created_date, last_modified_date)"
+                            + " SELECT task_id, user_id, title, description, due_date, priority, priority_rank, status, version,"
+                            + " created_date, last_modified_date FROM TASK WHERE status = ?1 AND last_modified_date < ?2"
+                            + " AND task_id IN (" + TaskDao.bindList(3, chunk.size()) + ")")
+                    .setParameter(1, status.name())
+                    .setParameter(2, new Timestamp(before.getTime()));
+            for (int i = 0; i < chunk.size(); i++) {
+                insert.setParameter(i + 3, chunk.get(i));
+            }
+            inserted += insert.executeUpdate();
+        }
+        return inserted;
+    }
+
+    /**
+     * Up to {@code limit} archived tasks of the user with IDs below {@code beforeTaskId} (all
+     * when null), highest ID first.
+     */
+    public List<TaskView> findViewPageByUserId(Long userId, Long beforeTaskId, int limit) {
+        return entityManager.createQuery("SELECT NEW com.nicoceron.nimblev5.dto.TaskView(a.taskId, a.userId, a.title,"
+                        + " a.description, a.dueDate, a.priority, a.status, a.createdDate, a.lastModifiedDate, a.version)"
+                        + " FROM ArchivedTask a WHERE a.userId = :userId AND a.taskId < :beforeTaskId ORDER BY a.taskId DESC", TaskView.class)
+                .setParameter("userId", userId)
+                .setParameter("beforeTaskId", beforeTaskId != null ? beforeTaskId : Long.MAX_VALUE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int deleteByUserId(Long userId) {
+        return entityManager.createQuery("DELETE FROM ArchivedTask a WHERE a.userId = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+}
@@ -1,24 +1,79 @@
 package com.nicoceron.nimblev5.dao; // Adjust package if needed
 
 import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskPriority;
 import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import com.nicoceron.nimblev5.dto.TaskSortOrder;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.Timed;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+@Timed
 @ApplicationScoped
 public class TaskDao {
 
+    static final int IN_LIST_CHUNK = 1000; // Oracle rejects IN lists longer than 1000
+    // Bind list lengths of native IN-list statements, see nativeChunks
+    private static final int[] NATIVE_IN_LIST_SIZES = {16, 128, IN_LIST_CHUNK};
+    private static final char LIKE_ESCAPE = '\\';
+
+    // Constructor projection for read-only listings: no entity hydration, no change tracking, no User.
+    static final String VIEW_SELECT = "SELECT NEW com.nicoceron.nimblev5.dto.TaskView(t.taskId, t.userId, t.title,"
+            + " t.description, t.dueDate, t.priority, t.status, t.createdDate, t.lastModifiedDate, t.version) FROM Task t";
+
     // Inject EntityManager directly here
     @PersistenceContext(unitName = "NimblePU")
     protected EntityManager entityManager;
 
+    @Inject
+    private ReplicaRouting replicaRouting; // the reads marked below may go to the replica
+
+    // Search query shapes already registered as named queries with the EntityManagerFactory
+    private final Set<String> searchShapes = ConcurrentHashMap.newKeySet();
+
+    /** Replica-routed in {@link ReadOnly} operations. */
     public Optional<Task> findById(Long id) {
-        return Optional.ofNullable(entityManager.find(Task.class, id));
+        return Optional.ofNullable(replicaRouting.readOwned(entityManager, em -> em.find(Task.class, id), Task::getUserId));
+    }
+
+    /**
+     * The task if the shared cache already holds it, without going to the database; empty otherwise.
+     */
+    public Optional<Task> findCachedById(Long id) {
+        if (!entityManager.getEntityManagerFactory().getCache().contains(Task.class, id)) {
+            return Optional.empty();
+        }
+        return findById(id);
     }
 
     public List<Task> findAll() {
@@ -26,10 +81,79 @@ public class TaskDao {
                 .getResultList();
     }
 
+    /**
+     * Passes every task, in ID order, to {@code action}, reading them through a scrollable cursor
+     * {@code fetchSize} rows per round trip. Returns the number of tasks.
+     */
+    public long forEachView(int fetchSize, Consumer<TaskView> action) {
+        return QueryCursors.forEach(entityManager.createQuery(VIEW_SELECT + " ORDER BY t.taskId", TaskView.class), fetchSize, action);
+    }
+
     public void persist(Task entity) {
         entityManager.persist(entity);
     }
 
+    /**
+     * Inserts the tasks exactly as given, IDs, timestamps and versions included, as one JDBC batch
+     * on the transaction's connection. Meant for bulk import: the rows bypass the persistence
+     * context and the shared cache, which is safe because they are new. Missing created or
+     * last-modified dates become now, a missing version 0.
+     */
+    public int insertAll(List<TaskView> tasks) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Connection connection = entityManager.unwrap(Connection.class);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO TASK (task_id, user_id, title, description,"
+                + " due_date, priority, priority_rank, status, created_date, last_modified_date, version)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (TaskView task : tasks) {
+                insert.setLong(1, task.getTaskId());
+                insert.setLong(2, task.getUserId());
+                insert.setString(3, task.getTitle());
+                insert.setString(4, task.getDescription());
+                insert.setTimestamp(5, toTimestamp(task.getDueDate(), null));
+                insert.setString(6, task.getPriority() != null ? task.getPriority().name() : null);
+                if (task.getPriority() != null) {
+                    insert.setInt(7, task.getPriority().getRank());
+                } else {
+                    insert.setNull(7, Types.INTEGER);
+                }
+                insert.setString(8, task.getStatus() != null ? task.getStatus().name() : null);
+                insert.setTimestamp(9, toTimestamp(task.getCreatedDate(), now));
+                insert.setTimestamp(10, toTimestamp(task.getLastModifiedDate(), now));
+                insert.setLong(11, task.getVersion() != null ? task.getVersion() : 0L);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException e) {
+            throw new PersistenceException("Inserting " + tasks.size() + " tasks failed: " + e.getMessage(), e);
+        }
+        return tasks.size();
+    }
+
+    /** Moves TASK_SEQ past the highest task ID, e.g. after {@link #insertAll}; see {@link IdSequences}. */
+    public int advanceIdSequence() {
+        Long maxId = entityManager.createQuery("SELECT MAX(t.taskId) FROM Task t", Long.class).getSingleResult();
+        return maxId != null ? IdSequences.advancePast(entityManager, "TASK_SEQ", maxId) : 0;
+    }
+
+    static Timestamp toTimestamp(Date date, Timestamp orElse) {
+        return date == null ? orElse : date instanceof Timestamp ? (Timestamp) date : new Timestamp(date.getTime());
+    }
+
+    /**
+     * Pushes pending inserts/updates to the database (as JDBC batches) and detaches everything,
+     * keeping the persistence context small during bulk work.
+     */
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /** Stops tracking the entity, so later changes to it are never written. */
+    public void detach(Task entity) {
+        entityManager.detach(entity);
+    }
+
     public Task merge(Task entity) {
         return entityManager.merge(entity);
     }
@@ -51,8 +175,9 @@ public class TaskDao {
         findById(id).ifPresent(this::remove);
     }
 
+    /** Replica-routed in {@link ReadOnly} operations. */
     public List<Task> findByUserId(Long userId) {
-        return entityManager.createQuery("SELECT t FROM Task t WHERE t.user.userId = :userId ORDER BY t.dueDate ASC, t.priority ASC", Task.class)
+        return replicaRouting.reader(entityManager, userId).createQuery("SELECT t FROM Task t WHERE t.user.userId = :userId ORDER BY t.dueDate ASC, t.priority ASC", Task.class)
                 .setParameter("userId", userId)
                 .getResultList();
     }
@@ -64,5 +189,481 @@ public class TaskDao {
                 .getResultList();
     }
 
-    // Add other specific finders as needed (e.g., findByPriority, findByDueDateRange)
+    // --- Read-only projections ---
+
+    /** Replica-routed in {@link ReadOnly} operations. */
+    public Optional<TaskView> findViewById(Long id) {
+        return Optional.ofNullable(replicaRouting.readOwned(entityManager, em -> {
+            List<TaskView> views = em.createQuery(VIEW_SELECT + " WHERE t.taskId = :taskId", TaskView.class)
+                    .setParameter("taskId", id)
+                    .getResultList();
+            return views.isEmpty() ? null : views.get(0);
+        }, TaskView::getUserId));
+    }
+
+    /** Replica-routed in {@link ReadOnly} operations. */
+    public List<TaskView> findViewsByUserId(Long userId) {
+        return replicaRouting.reader(entityManager, userId).createQuery(VIEW_SELECT + " WHERE t.user.userId = :userId ORDER BY t.dueDate ASC, t.priority ASC", TaskView.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    /**
+     * Returns at most {@code limit} tasks of a user that sort strictly after {@code cursor}
+     * (or from the start when {@code cursor} is null), in the same {@code dueDate, priority}
+     * order as {@link #findByUserId}, with {@code taskId} as the tie-breaker.
+     * NULL due dates and priorities sort last, matching Oracle's default for ASC.
+     * Replica-routed in {@link ReadOnly} operations.
+     */
+    public List<TaskView> findViewPageByUserId(Long userId, TaskKeysetCursor cursor, int limit) {
+        StringBuilder jpql = new StringBuilder(VIEW_SELECT).append(" WHERE t.user.userId = :userId");
+        List<TaskPriority> laterPriorities = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.getPriority() != null) {
+                // Priority is stored as a STRING enum, so the database orders it by name.
+                for (TaskPriority p : TaskPriority.values()) {
+                    if (p.name().compareTo(cursor.getPriority().name()) > 0) {
+                        laterPriorities.add(p);
+                    }
+                }
+            }
+            jpql.append(" AND (").append(seekPredicate(cursor, !laterPriorities.isEmpty())).append(')');
+        }
+        jpql.append(" ORDER BY t.dueDate ASC NULLS LAST, t.priority ASC NULLS LAST, t.taskId ASC");
+
+        TypedQuery<TaskView> query = replicaRouting.reader(entityManager, userId).createQuery(jpql.toString(), TaskView.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("taskId", cursor.getTaskId());
+            if (cursor.getDueDate() != null) {
+                query.setParameter("dueDate", cursor.getDueDate());
+            }
+            if (cursor.getPriority() != null) {
+                query.setParameter("priority", cursor.getPriority());
+            }
+            if (!laterPriorities.isEmpty()) {
+                query.setParameter("laterPriorities", laterPriorities);
+            }
+        }
+        return query.getResultList();
+    }
+
+    private static String seekPredicate(TaskKeysetCursor cursor, boolean hasLaterPriorities) {
+        String priorityTail;
+        if (cursor.getPriority() != null) {
+            priorityTail = (hasLaterPriorities ? "t.priority IN :laterPriorities OR " : "")
+                    + "t.priority IS NULL OR (t.priority = :priority AND t.taskId > :taskId)";
+        } else {
+            priorityTail = "t.priority IS NULL AND t.taskId > :taskId";
+        }
+        if (cursor.getDueDate() != null) {
+            return "t.dueDate > :dueDate OR t.dueDate IS NULL OR (t.dueDate = :dueDate AND (" + priorityTail + "))";
+        }
+        return "t.dueDate IS NULL AND (" + priorityTail + ")";
+    }
+
+    /**
+     * Task counts of one user grouped by {@code (status, priority, dueDate)}: rows of
+     * {@code [TaskStatus, TaskPriority, Date, Long]}. Enough to rebuild every summary figure,
+     * including overdue counts at any later instant, in a single round trip.
+     */
+    public List<Object[]> countByUserIdGroupedByStatusPriorityAndDueDate(Long userId) {
+        return entityManager.createQuery("SELECT t.status, t.priority, t.dueDate, COUNT(t) FROM Task t"
+                        + " WHERE t.user.userId = :userId GROUP BY t.status, t.priority, t.dueDate", Object[].class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    /** Owners of the given tasks, e.g. to know whose derived state a bulk statement touches. */
+    public Set<Long> findUserIdsByTaskIds(Collection<Long> ids) {
+        Set<Long> userIds = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            userIds.addAll(entityManager.createQuery("SELECT DISTINCT t.userId FROM Task t WHERE t.taskId IN :ids", Long.class)
+                    .setParameter("ids", chunk)
+                    .getResultList());
+        }
+        return userIds;
+    }
+
+    /**
+     * At most {@code limit} of the user's tasks modified at or after {@code since}, oldest
+     * modification first. Served by the (user_id, last_modified_date) index.
+     */
+    public List<TaskView> findViewsModifiedSince(Long userId, Date since, int limit) {
+        return entityManager.createQuery(VIEW_SELECT + " WHERE t.user.userId = :userId AND t.lastModifiedDate >= :since"
+                        + " ORDER BY t.lastModifiedDate ASC, t.taskId ASC", TaskView.class)
+                .setParameter("userId", userId)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Date findLatestModifiedDateByUserId(Long userId) {
+        return entityManager.createQuery("SELECT MAX(t.lastModifiedDate) FROM Task t WHERE t.user.userId = :userId", Date.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+    }
+
+    /**
+     * Text columns of the given users' tasks as {@code [taskId, userId, title, description]},
+     * ordered by user and task ID. Used to build the full-text index.
+     */
+    public List<Object[]> findTextRowsByUserIds(Collection<Long> userIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            rows.addAll(entityManager.createQuery("SELECT t.taskId, t.userId, t.title, t.description FROM Task t"
+                            + " WHERE t.user.userId IN :userIds ORDER BY t.userId, t.taskId", Object[].class)
+                    .setParameter("userIds", chunk)
+                    .getResultList());
+        }
+        return rows;
+    }
+
+    /** Views of those of the given tasks that exist, in no particular order. */
+    public List<TaskView> findViewsByIds(Collection<Long> ids) {
+        List<TaskView> views = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            views.addAll(entityManager.createQuery(VIEW_SELECT + " WHERE t.taskId IN :ids", TaskView.class)
+                    .setParameter("ids", chunk)
+                    .getResultList());
+        }
+        return views;
+    }
+
+    /** Views of those of the given tasks that exist and belong to the user, in no particular order. */
+    public List<TaskView> findViewsByUserIdAndIds(Long userId, Collection<Long> ids) {
+        List<TaskView> views = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            views.addAll(entityManager.createQuery(VIEW_SELECT + " WHERE t.user.userId = :userId AND t.taskId IN :ids", TaskView.class)
+                    .setParameter("userId", userId)
+                    .setParameter("ids", chunk)
+                    .getResultList());
+        }
+        return views;
+    }
+
+    // --- Multi-criteria search ---
+
+    /**
+     * One page of a {@link TaskSearch}, {@code limit} rows from {@code offset}. Each combination
+     * of present criteria and sort order is a distinct query shape; it is built once with the
+     * Criteria API and registered as a named query, so later calls skip query construction and
+     * parsing and only bind parameters. There are at most 2^5 * 2 shapes.
+     */
+    public List<TaskView> search(TaskSearch search, TaskSortOrder order, int offset, int limit) {
+        List<TaskStatus> statuses = present(search.getStatuses());
+        List<Integer> priorityRanks = new ArrayList<>();
+        for (TaskPriority priority : present(search.getPriorities())) {
+            priorityRanks.add(priority.getRank());
+        }
+        boolean byTitle = search.getTitlePrefix() != null && !search.getTitlePrefix().isEmpty();
+
+        String name = searchQueryName(!statuses.isEmpty(), !priorityRanks.isEmpty(), search.getDueFrom() != null,
+                search.getDueTo() != null, byTitle, order);
+        if (!searchShapes.contains(name)) {
+            entityManager.getEntityManagerFactory().addNamedQuery(name, entityManager.createQuery(searchCriteria(
+                    !statuses.isEmpty(), !priorityRanks.isEmpty(), search.getDueFrom() != null, search.getDueTo() != null, byTitle, order)));
+            searchShapes.add(name);
+        }
+
+        TypedQuery<TaskView> query = entityManager.createNamedQuery(name, TaskView.class)
+                .setParameter("userId", search.getUserId());
+        if (!statuses.isEmpty()) {
+            query.setParameter("statuses", statuses);
+        }
+        if (!priorityRanks.isEmpty()) {
+            query.setParameter("priorityRanks", priorityRanks);
+        }
+        if (search.getDueFrom() != null) {
+            query.setParameter("dueFrom", search.getDueFrom());
+        }
+        if (search.getDueTo() != null) {
+            query.setParameter("dueTo", search.getDueTo());
+        }
+        if (byTitle) {
+            query.setParameter("titlePattern", escapeLike(search.getTitlePrefix()) + "%");
+        }
+        return query.setFirstResult(offset).setMaxResults(limit).getResultList();
+    }
+
+    private static String searchQueryName(boolean byStatus, boolean byPriority, boolean byDueFrom, boolean byDueTo,
+                                          boolean byTitle, TaskSortOrder order) {
+        return "Task.search." + (byStatus ? 'S' : '-') + (byPriority ? 'P' : '-') + (byDueFrom ? 'F' : '-')
+                + (byDueTo ? 'T' : '-') + (byTitle ? 'L' : '-') + '.' + order.name();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CriteriaQuery<TaskView> searchCriteria(boolean byStatus, boolean byPriority, boolean byDueFrom, boolean byDueTo,
+                                                   boolean byTitle, TaskSortOrder order) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskView> query = cb.createQuery(TaskView.class);
+        Root<Task> t = query.from(Task.class);
+        query.select(cb.construct(TaskView.class, t.get("taskId"), t.get("userId"), t.get("title"), t.get("description"),
+                t.get("dueDate"), t.get("priority"), t.get("status"), t.get("createdDate"), t.get("lastModifiedDate"), t.get("version")));
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(t.get("user").get("userId"), cb.parameter(Long.class, "userId")));
+        if (byStatus) {
+            where.add(t.get("status").in((Expression<Collection<?>>) (Expression) cb.parameter(Collection.class, "statuses")));
+        }
+        if (byPriority) {
+            where.add(t.get("priorityRank").in((Expression<Collection<?>>) (Expression) cb.parameter(Collection.class, "priorityRanks")));
+        }
+        if (byDueFrom) {
+            where.add(cb.greaterThanOrEqualTo(t.<Date>get("dueDate"), cb.parameter(Date.class, "dueFrom")));
+        }
+        if (byDueTo) {
+            where.add(cb.lessThanOrEqualTo(t.<Date>get("dueDate"), cb.parameter(Date.class, "dueTo")));
+        }
+        if (byTitle) {
+            where.add(cb.like(t.<String>get("title"), cb.parameter(String.class, "titlePattern"), LIKE_ESCAPE));
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        // Matches the TASK_USER_*_IX indexes, so the database can return rows in index order.
+        if (order == TaskSortOrder.PRIORITY) {
+            query.orderBy(cb.asc(t.get("priorityRank")), cb.asc(t.get("dueDate")), cb.asc(t.get("taskId")));
+        } else {
+            query.orderBy(cb.asc(t.get("dueDate")), cb.asc(t.get("priorityRank")), cb.asc(t.get("taskId")));
+        }
+        return query;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static <T> List<T> present(Collection<T> values) {
+        List<T> present = new ArrayList<>();
+        if (values != null) {
+            for (T value : values) {
+                if (value != null && !present.contains(value)) {
+                    present.add(value);
+                }
+            }
+        }
+        return present;
+    }
+
+    // --- Set-based writes: one statement per chunk, nothing is loaded into the persistence context ---
+
+    public int updateStatusByIds(Collection<Long> ids, Long userId, TaskStatus status) {
+        return updateStatusAndPriorityByIds(ids, userId, status, null);
+    }
+
+    /**
+     * Sets status and/or priority (whichever is non-null) of all given tasks, only those of
+     * {@code userId} unless that is null.
+     */
+    public int updateStatusAndPriorityByIds(Collection<Long> ids, Long userId, TaskStatus status, TaskPriority priority) {
+        StringBuilder jpql = new StringBuilder("UPDATE Task t SET t.version = t.version + 1");
+        if (status != null) jpql.append(", t.status = :status");
+        if (priority != null) jpql.append(", t.priority = :priority, t.priorityRank = :priorityRank");
+        jpql.append(" WHERE t.taskId IN :ids");
+        if (userId != null) jpql.append(" AND t.user.userId = :userId");
+        String statement = jpql.toString();
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            Query update = entityManager.createQuery(statement).setParameter("ids", chunk);
+            if (userId != null) update.setParameter("userId", userId);
+            if (status != null) update.setParameter("status", status);
+            if (priority != null) update.setParameter("priority", priority).setParameter("priorityRank", priority.getRank());
+            updated += update.executeUpdate();
+        }
+        return updated;
+    }
+
+    /**
+     * Sets status and priority of each task to those of its view, provided the row is still at
+     * the view's version: one {@code UPDATE ... WHERE task_id = ? AND version = ?} per task, sent
+     * as a single JDBC batch on the transaction's connection. Rows changed or deleted since the
+     * view was read are left alone. Written tasks are evicted from the shared cache. Returns the
+     * IDs of the tasks written.
+     */
+    public Set<Long> updateStatusAndPriorityIfVersion(List<TaskView> tasks) {
+        Set<Long> written = new HashSet<>();
+        if (tasks.isEmpty()) {
+            return written;
+        }
+        Connection connection = entityManager.unwrap(Connection.class);
+        try (PreparedStatement update = connection.prepareStatement("UPDATE TASK SET status = ?, priority = ?,"
+                + " priority_rank = ?, version = version + 1 WHERE task_id = ? AND version = ?")) {
+            for (TaskView task : tasks) {
+                update.setString(1, task.getStatus() != null ? task.getStatus().name() : null);
+                update.setString(2, task.getPriority() != null ? task.getPriority().name() : null);
+                if (task.getPriority() != null) {
+                    update.setInt(3, task.getPriority().getRank());
+                } else {
+                    update.setNull(3, Types.INTEGER);
+                }
+                update.setLong(4, task.getTaskId());
+                update.setLong(5, task.getVersion());
+                update.addBatch();
+            }
+            int[] counts = update.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                // SUCCESS_NO_INFO only comes from drivers that do not report batch counts; Oracle 12c+ does
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    written.add(tasks.get(i).getTaskId());
+                }
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Updating " + tasks.size() + " tasks failed: " + e.getMessage(), e);
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        for (Long taskId : written) {
+            cache.evict(Task.class, taskId);
+        }
+        return written;
+    }
+
+    /**
+     * Sets only the non-null fields of one task, provided its version is still {@code expectedVersion}:
+     * {@code UPDATE TASK SET ..., version = version + 1 WHERE task_id = ? AND version = ?}.
+     * Returns 1 if the row was updated, 0 if it is missing or was changed concurrently.
+     */
+    public int patch(Long taskId, long expectedVersion, String title, String description, Date dueDate,
+                     TaskPriority priority, TaskStatus status) {
+        StringBuilder jpql = new StringBuilder("UPDATE Task t SET t.version = t.version + 1");
+        if (title != null) jpql.append(", t.title = :title");
+        if (description != null) jpql.append(", t.description = :description");
+        if (dueDate != null) jpql.append(", t.dueDate = :dueDate");
+        if (priority != null) jpql.append(", t.priority = :priority, t.priorityRank = :priorityRank");
+        if (status != null) jpql.append(", t.status = :status");
+        Query update = entityManager.createQuery(jpql.append(" WHERE t.taskId = :taskId AND t.version = :version").toString())
+                .setParameter("taskId", taskId)
+                .setParameter("version", expectedVersion);
+        if (title != null) update.setParameter("title", title);
+        if (description != null) update.setParameter("description", description);
+        if (dueDate != null) update.setParameter("dueDate", dueDate);
+        if (priority != null) update.setParameter("priority", priority).setParameter("priorityRank", priority.getRank());
+        if (status != null) update.setParameter("status", status);
+        return update.executeUpdate();
+    }
+
+    /** Deletes the given tasks, only those of {@code userId} unless that is null. */
+    public int deleteByIds(Collection<Long> ids, Long userId) {
+        String statement = "DELETE FROM Task t WHERE t.taskId IN :ids" + (userId != null ? " AND t.user.userId = :userId" : "");
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            Query delete = entityManager.createQuery(statement).setParameter("ids", chunk);
+            if (userId != null) delete.setParameter("userId", userId);
+            deleted += delete.executeUpdate();
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes those of the given tasks that are still in {@code status} and last modified before
+     * {@code before}, so a task changed since it was picked stays.
+     */
+    public int deleteByIdsAndStatusModifiedBefore(Collection<Long> ids, TaskStatus status, Date before) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            deleted += entityManager.createQuery("DELETE FROM Task t WHERE t.taskId IN :ids AND t.status = :status AND t.lastModifiedDate < :before")
+                    .setParameter("ids", chunk)
+                    .setParameter("status", status)
+                    .setParameter("before", before)
+                    .executeUpdate();
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes a user's tasks in the given status whose last modification is before {@code before}.
+     */
+    public int deleteByUserIdAndStatusModifiedBefore(Long userId, TaskStatus status, Date before) {
+        return entityManager.createQuery("DELETE FROM Task t WHERE t.user.userId = :userId AND t.status = :status AND t.lastModifiedDate < :before")
+                .setParameter("userId", userId)
+                .setParameter("status", status)
+                .setParameter("before", before)
+                .executeUpdate();
+    }
+
+    /** Deletes all of the user's tasks with one statement, without loading them. */
+    public int deleteByUserId(Long userId) {
+        return entityManager.createQuery("DELETE FROM Task t WHERE t.userId = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * Up to {@code limit} tasks in the given status last modified before {@code before}, lowest
+     * ID first, for moving them elsewhere in bounded batches.
+     */
+    public List<TaskView> findViewsByStatusModifiedBefore(TaskStatus status, Date before, int limit) {
+        return entityManager.createQuery(VIEW_SELECT + " WHERE t.status = :status AND t.lastModifiedDate < :before ORDER BY t.taskId", TaskView.class)
+                .setParameter("status", status)
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Locks those of the given tasks that are still in {@code status} and last modified before
+     * {@code before} (SELECT ... FOR UPDATE SKIP LOCKED) and returns their IDs. Until the
+     * transaction ends they cannot change, so statements on the returned IDs all see the same
+     * rows; tasks another transaction holds are skipped, not waited for.
+     */
+    public Set<Long> lockIdsByStatusModifiedBefore(Collection<Long> ids, TaskStatus status, Date before) {
+        Set<Long> locked = new HashSet<>();
+        for (List<Long> chunk : nativeChunks(ids)) {
+            Query select = entityManager.createNativeQuery("SELECT task_id FROM TASK WHERE status = ?1 AND last_modified_date < ?2"
+                            + " AND task_id IN (" + bindList(3, chunk.size()) + ") FOR UPDATE SKIP LOCKED")
+                    .setParameter(1, status.name())
+                    .setParameter(2, new Timestamp(before.getTime()));
+            for (int i = 0; i < chunk.size(); i++) {
+                select.setParameter(i + 3, chunk.get(i));
+            }
+            for (Object id : select.getResultList()) {
+                locked.add(((Number) id).longValue());
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * {@link #chunks} for native statements, each padded to one of a few fixed lengths by
+     * repeating its last ID. The statement text then depends on the length only, so the database
+     * parses it once and query tracing counts it as one shape, rather than one per batch size.
+     */
+    static List<List<Long>> nativeChunks(Collection<Long> ids) {
+        List<List<Long>> chunks = chunks(ids);
+        for (int c = 0; c < chunks.size(); c++) {
+            List<Long> chunk = chunks.get(c);
+            int size = IN_LIST_CHUNK;
+            for (int bucket : NATIVE_IN_LIST_SIZES) {
+                if (bucket >= chunk.size()) {
+                    size = bucket;
+                    break;
+                }
+            }
+            List<Long> padded = new ArrayList<>(size);
+            padded.addAll(chunk);
+            while (padded.size() < size) {
+                padded.add(chunk.get(chunk.size() - 1));
+            }
+            chunks.set(c, padded);
+        }
+        return chunks;
+    }
+
+    /** {@code count} numbered bind markers from {@code ?first} on, comma separated. */
+    static String bindList(int first, int count) {
+        StringBuilder markers = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            markers.append(i > 0 ? ", ?" : "?").append(first + i);
+        }
+        return markers.toString();
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_LIST_CHUNK) {
+            chunks.add(all.subList(from, Math.min(from + IN_LIST_CHUNK, all.size())));
+        }
+        return chunks;
+    }
 }
\ No newline at end of file
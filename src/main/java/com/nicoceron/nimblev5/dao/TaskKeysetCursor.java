@@ -0,0 +1,57 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.dto.TaskView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last row of a page in the {@code (dueDate, priority, taskId)} ordering used by
+ * {@link TaskDao#findViewPageByUserId}. Clients only ever see it as an opaque token.
+ */
+public final class TaskKeysetCursor {
+
+    private static final String NULL_MARKER = "-";
+
+    private final Date dueDate;
+    private final TaskPriority priority;
+    private final long taskId;
+
+    public TaskKeysetCursor(Date dueDate, TaskPriority priority, long taskId) {
+        this.dueDate = dueDate != null ? new Date(dueDate.getTime()) : null;
+        this.priority = priority;
+        this.taskId = taskId;
+    }
+
+    public static TaskKeysetCursor after(TaskView task) {
+        return new TaskKeysetCursor(task.getDueDate(), task.getPriority(), task.getTaskId());
+    }
+
+    public Date getDueDate() { return dueDate != null ? new Date(dueDate.getTime()) : null; }
+    public TaskPriority getPriority() { return priority; }
+    public long getTaskId() { return taskId; }
+
+    public String encode() {
+        String raw = (dueDate != null ? Long.toString(dueDate.getTime()) : NULL_MARKER)
+                + '|' + (priority != null ? priority.name() : NULL_MARKER)
+                + '|' + taskId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TaskKeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+            Date dueDate = NULL_MARKER.equals(parts[0]) ? null : new Date(Long.parseLong(parts[0]));
+            TaskPriority priority = NULL_MARKER.equals(parts[1]) ? null : TaskPriority.valueOf(parts[1]);
+            return new TaskKeysetCursor(dueDate, priority, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException and bad Base64
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
+}
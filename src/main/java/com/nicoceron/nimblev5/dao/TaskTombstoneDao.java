@@ -0,0 +1,94 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.domain.TaskTombstone;
+import com.nicoceron.nimblev5.metrics.Timed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Timed
+@ApplicationScoped
+public class TaskTombstoneDao {
+
+    @PersistenceContext(unitName = "NimblePU")
+    protected EntityManager entityManager;
+
+    /**
+     * Writes tombstones for the given tasks straight from the TASK table (INSERT ... SELECT),
+     * so bulk deletes never load the rows. Must run before the tasks are deleted. Tombstones are
+     * never persisted as entities: their deletion time is a database default, which the shared
+     * cache would otherwise hold as null.
+     */
+    public int insertForTaskIds(Collection<Long> taskIds) {
+        return insertForTaskIds(taskIds, null);
+    }
+
+    /** As {@link #insertForTaskIds(Collection)}, only for tasks of {@code userId} unless that is null. */
+    public int insertForTaskIds(Collection<Long> taskIds, Long userId) {
+        int inserted = 0;
+        for (List<Long> chunk : TaskDao.nativeChunks(taskIds)) {
+            StringBuilder sql = new StringBuilder("INSERT INTO TASK_TOMBSTONE (task_id, user_id)"
+                    + " SELECT task_id, user_id FROM TASK WHERE task_id IN (").append(TaskDao.bindList(1, chunk.size())).append(')');
+            if (userId != null) {
+                sql.append(" AND user_id = ?").append(chunk.size() + 1);
+            }
+            Query insert = entityManager.createNativeQuery(sql.toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                insert.setParameter(i + 1, chunk.get(i));
+            }
+            if (userId != null) {
+                insert.setParameter(chunk.size() + 1, userId);
+            }
+            inserted += insert.executeUpdate();
+        }
+        return inserted;
+    }
+
+    /**
+     * Counterpart of {@link TaskDao#deleteByUserIdAndStatusModifiedBefore}: same predicate,
+     * to be run first in the same transaction.
+     */
+    public int insertForUserIdAndStatusModifiedBefore(Long userId, TaskStatus status, Date before) {
+        return entityManager.createNativeQuery("INSERT INTO TASK_TOMBSTONE (task_id, user_id)"
+                        + " SELECT task_id, user_id FROM TASK WHERE user_id = ?1 AND status = ?2 AND last_modified_date < ?3")
+                .setParameter(1, userId)
+                .setParameter(2, status.name())
+                .setParameter(3, new Timestamp(before.getTime()))
+                .executeUpdate();
+    }
+
+    /** At most {@code limit} tombstones of the user from {@code since} on, oldest first. */
+    public List<TaskTombstone> findByUserIdDeletedSince(Long userId, Date since, int limit) {
+        return entityManager.createQuery("SELECT tb FROM TaskTombstone tb WHERE tb.userId = :userId"
+                        + " AND tb.deletedDate >= :since ORDER BY tb.deletedDate ASC, tb.taskId ASC", TaskTombstone.class)
+                .setParameter("userId", userId)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Date findLatestDeletedDateByUserId(Long userId) {
+        return entityManager.createQuery("SELECT MAX(tb.deletedDate) FROM TaskTombstone tb WHERE tb.userId = :userId", Date.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+    }
+
+    public int deleteByUserId(Long userId) {
+        return entityManager.createQuery("DELETE FROM TaskTombstone tb WHERE tb.userId = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    public int deleteDeletedBefore(Date before) {
+        return entityManager.createQuery("DELETE FROM TaskTombstone tb WHERE tb.deletedDate < :before")
+                .setParameter("before", before)
+                .executeUpdate();
+    }
+}
@@ -1,26 +1,49 @@
 package com.nicoceron.nimblev5.dao; // Adjust package if needed
 
 import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.metrics.Timed;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.PersistenceUnitUtil;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+@Timed
 @ApplicationScoped
 public class UserDao {
 
+    static final int IN_LIST_CHUNK = 1000;
+
+    public enum IdentityField { USERNAME, EMAIL }
+
     // Inject EntityManager directly here
     @PersistenceContext(unitName = "NimblePU") // Use the correct persistence unit name
     protected EntityManager entityManager;
 
+    @Inject
+    private ReplicaRouting replicaRouting; // findById may go to the replica
+
     // --- Re-implement basic CRUD using the injected EntityManager ---
 
+    /** Replica-routed in {@link ReadOnly} operations. */
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(entityManager.find(User.class, id));
+        return Optional.ofNullable(replicaRouting.readOwned(entityManager, em -> em.find(User.class, id), User::getUserId));
     }
 
     public List<User> findAll() {
@@ -28,10 +51,72 @@ public class UserDao {
                 .getResultList();
     }
 
+    /**
+     * Passes every user, in ID order, to {@code action}, reading them through a scrollable cursor
+     * {@code fetchSize} rows per round trip. The users are detached copies holding the column
+     * values only (no tasks). Returns the number of users.
+     */
+    public long forEach(int fetchSize, Consumer<User> action) {
+        return QueryCursors.forEach(entityManager.createQuery(
+                "SELECT u.userId, u.username, u.email, u.passwordHash, u.createdDate FROM User u ORDER BY u.userId", Object[].class),
+                fetchSize, (Object[] row) -> {
+                    User user = new User();
+                    user.setUserId((Long) row[0]);
+                    user.setUsername((String) row[1]);
+                    user.setEmail((String) row[2]);
+                    user.setPasswordHash((String) row[3]);
+                    user.setCreatedDate((Date) row[4]);
+                    action.accept(user);
+                });
+    }
+
+    /**
+     * Inserts the users exactly as given, IDs and created dates included, as one JDBC batch on the
+     * transaction's connection. Meant for bulk import: the rows bypass the persistence context
+     * and the shared cache, which is safe because they are new. A missing created date becomes now.
+     */
+    public int insertAll(List<User> users) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Connection connection = entityManager.unwrap(Connection.class);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO USERS (user_id, username, email, password_hash, created_date) VALUES (?, ?, ?, ?, ?)")) {
+            for (User user : users) {
+                insert.setLong(1, user.getUserId());
+                insert.setString(2, user.getUsername());
+                insert.setString(3, user.getEmail());
+                insert.setString(4, user.getPasswordHash());
+                insert.setTimestamp(5, TaskDao.toTimestamp(user.getCreatedDate(), now));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException e) {
+            throw new PersistenceException("Inserting " + users.size() + " users failed: " + e.getMessage(), e);
+        }
+        return users.size();
+    }
+
+    /** Moves USERS_SEQ past the highest user ID, e.g. after {@link #insertAll}; see {@link IdSequences}. */
+    public int advanceIdSequence() {
+        Long maxId = entityManager.createQuery("SELECT MAX(u.userId) FROM User u", Long.class).getSingleResult();
+        return maxId != null ? IdSequences.advancePast(entityManager, "USERS_SEQ", maxId) : 0;
+    }
+
+    /**
+     * Returns a reference usable for associations without loading the user row.
+     */
+    public User getReference(Long id) {
+        return entityManager.getReference(User.class, id);
+    }
+
     public void persist(User entity) {
         entityManager.persist(entity);
     }
 
+    /** Writes pending changes now rather than at commit, e.g. to do it while holding a database permit. */
+    public void flush() {
+        entityManager.flush();
+    }
+
     public User merge(User entity) {
         return entityManager.merge(entity);
     }
@@ -49,10 +134,28 @@ public class UserDao {
         }
     }
 
+    public int updatePasswordHash(Long userId, String passwordHash) {
+        return entityManager.createQuery("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.userId = :userId")
+                .setParameter("passwordHash", passwordHash)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
     public void removeById(Long id) {
         findById(id).ifPresent(this::remove);
     }
 
+    /**
+     * Deletes the user row with a single statement. Unlike {@link #remove}, this does not cascade
+     * to {@code User.tasks}, which would load and delete every task one by one: the caller removes
+     * the tasks first, set-based.
+     */
+    public int deleteById(Long id) {
+        return entityManager.createQuery("DELETE FROM User u WHERE u.userId = :userId")
+                .setParameter("userId", id)
+                .executeUpdate();
+    }
+
     // --- Keep your specific finders ---
 
     public Optional<User> findByUsername(String username) {
@@ -66,6 +169,61 @@ public class UserDao {
         }
     }
 
+    /**
+     * Checks username and email uniqueness in one round trip; returns the fields already taken.
+     */
+    public Set<IdentityField> findTakenIdentityFields(String username, String email) {
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT u.username, u.email FROM User u WHERE u.username = :username OR u.email = :email", Object[].class)
+                .setParameter("username", username)
+                .setParameter("email", email)
+                .getResultList();
+        Set<IdentityField> taken = EnumSet.noneOf(IdentityField.class);
+        for (Object[] row : rows) {
+            if (username.equals(row[0])) {
+                taken.add(IdentityField.USERNAME);
+            }
+            if (email.equals(row[1])) {
+                taken.add(IdentityField.EMAIL);
+            }
+        }
+        return taken;
+    }
+
+    public boolean existsByUsername(String username) {
+        return !entityManager.createQuery("SELECT u.userId FROM User u WHERE u.username = :username", Long.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Returns up to {@code limit} rows of {@code [userId, username, email]} with IDs above
+     * {@code afterUserId} (all when null), in ID order, for scanning the table in bounded pages.
+     */
+    public List<Object[]> findIdentityPage(Long afterUserId, int limit) {
+        return entityManager.createQuery(
+                        "SELECT u.userId, u.username, u.email FROM User u WHERE u.userId > :afterUserId ORDER BY u.userId", Object[].class)
+                .setParameter("afterUserId", afterUserId != null ? afterUserId : Long.MIN_VALUE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Returns which of the given IDs exist, in chunks that stay below Oracle's 1000-element IN-list limit.
+     */
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += IN_LIST_CHUNK) {
+            existing.addAll(entityManager.createQuery("SELECT u.userId FROM User u WHERE u.userId IN :ids", Long.class)
+                    .setParameter("ids", all.subList(from, Math.min(from + IN_LIST_CHUNK, all.size())))
+                    .getResultList());
+        }
+        return existing;
+    }
+
     public Optional<User> findByEmail(String email) {
         try {
             User user = entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
@@ -0,0 +1,79 @@
+package com.nicoceron.nimblev5.domain;
+
+import jakarta.persistence.*;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A completed task moved out of TASK by the archiver, with the columns it had there. Rows are
+ * only ever written by {@code INSERT ... SELECT} from TASK and read back as {@code TaskView}s,
+ * so every column is read-only here. The archive time comes from the database clock.
+ */
+@Entity
+@Table(name = "TASK_ARCHIVE")
+public class ArchivedTask {
+
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false, insertable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "title", nullable = false, length = 100, insertable = false, updatable = false)
+    private String title;
+
+    @Column(name = "description", length = 1000, insertable = false, updatable = false)
+    private String description;
+
+    @Column(name = "due_date", insertable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date dueDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority", length = 10, insertable = false, updatable = false)
+    private TaskPriority priority;
+
+    @Column(name = "priority_rank", insertable = false, updatable = false)
+    private Integer priorityRank;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 15, insertable = false, updatable = false)
+    private TaskStatus status;
+
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    private Long version;
+
+    @Column(name = "created_date", nullable = false, insertable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdDate;
+
+    @Column(name = "last_modified_date", nullable = false, insertable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastModifiedDate;
+
+    @Column(name = "archived_date", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date archivedDate;
+
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public Date getDueDate() { return dueDate; }
+    public TaskPriority getPriority() { return priority; }
+    public Integer getPriorityRank() { return priorityRank; }
+    public TaskStatus getStatus() { return status; }
+    public Long getVersion() { return version; }
+    public Date getCreatedDate() { return createdDate; }
+    public Date getLastModifiedDate() { return lastModifiedDate; }
+    public Date getArchivedDate() { return archivedDate; }
+
+    @Override
+    public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; ArchivedTask that = (ArchivedTask) o; return Objects.equals(taskId, that.taskId); }
+    @Override
+    public int hashCode() { return Objects.hash(taskId); }
+    @Override
+    public String toString() { return "ArchivedTask{" + "taskId=" + taskId + ", userId=" + userId + ", title='" + title + '\'' + ", archivedDate=" + archivedDate + '}'; }
+}
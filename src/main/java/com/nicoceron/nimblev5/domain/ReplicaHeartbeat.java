@@ -0,0 +1,43 @@
+package com.nicoceron.nimblev5.domain;
+
+import jakarta.persistence.*;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * The replica lag probe: one row, stamped on the primary with the application clock and read
+ * back on the read replica.
+ */
+@Entity
+@Table(name = "REPLICA_HEARTBEAT")
+public class ReplicaHeartbeat {
+
+    public static final Integer ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "beat_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date beatTime;
+
+    public ReplicaHeartbeat() {
+    }
+
+    public ReplicaHeartbeat(Date beatTime) {
+        this.id = ID;
+        this.beatTime = beatTime;
+    }
+
+    public Integer getId() { return id; }
+    public Date getBeatTime() { return beatTime; }
+    public void setBeatTime(Date beatTime) { this.beatTime = beatTime; }
+
+    @Override
+    public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; ReplicaHeartbeat that = (ReplicaHeartbeat) o; return Objects.equals(id, that.id); }
+    @Override
+    public int hashCode() { return Objects.hash(id); }
+    @Override
+    public String toString() { return "ReplicaHeartbeat{" + "id=" + id + ", beatTime=" + beatTime + '}'; }
+}
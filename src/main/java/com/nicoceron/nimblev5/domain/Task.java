@@ -8,7 +8,7 @@ import java.util.Objects;
 @Table(name = "TASK")
 @SequenceGenerator(name = "task_seq_gen",
         sequenceName = "TASK_SEQ",
-        allocationSize = 1)
+        allocationSize = 50) // Must match INCREMENT BY of TASK_SEQ, see db/migration
 public class Task {
 
     @Id
@@ -20,6 +20,10 @@ public class Task {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Read-only view of the same FK column, so projections can read it without joining USERS
+    @Column(name = "user_id", insertable = false, updatable = false)
+    private Long userId;
+
     @Column(name = "title", nullable = false, length = 100)
     private String title;
 
@@ -34,10 +38,19 @@ public class Task {
     @Column(name = "priority", length = 10)
     private TaskPriority priority;
 
+    // Numeric copy of priority (HIGH = 0) so ORDER BY and indexes follow urgency, not the alphabet
+    @Column(name = "priority_rank")
+    private Integer priorityRank;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", length = 15)
     private TaskStatus status;
 
+    // Bumped by every write, including the set-based UPDATEs in TaskDao, so patchTask can detect lost updates
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_date", nullable = false, updatable = false, insertable = false,
             columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     @Temporal(TemporalType.TIMESTAMP)
@@ -52,7 +65,8 @@ public class Task {
     public Long getTaskId() { return taskId; }
     public void setTaskId(Long taskId) { this.taskId = taskId; }
     public User getUser() { return user; }
-    public void setUser(User user) { this.user = user; }
+    public void setUser(User user) { this.user = user; this.userId = user != null ? user.getUserId() : null; }
+    public Long getUserId() { return userId; } // no setter: written through setUser
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
     public String getDescription() { return description; }
@@ -60,9 +74,11 @@ public class Task {
     public Date getDueDate() { return dueDate; }
     public void setDueDate(Date dueDate) { this.dueDate = dueDate; }
     public TaskPriority getPriority() { return priority; }
-    public void setPriority(TaskPriority priority) { this.priority = priority; }
+    public void setPriority(TaskPriority priority) { this.priority = priority; this.priorityRank = priority != null ? priority.getRank() : null; }
+    public Integer getPriorityRank() { return priorityRank; } // no setter: written through setPriority
     public TaskStatus getStatus() { return status; }
     public void setStatus(TaskStatus status) { this.status = status; }
+    public Long getVersion() { return version; } // no setter: managed by the persistence provider
     public Date getCreatedDate() { return createdDate; }
     public void setCreatedDate(Date createdDate) { this.createdDate = createdDate; }
     public Date getLastModifiedDate() { return lastModifiedDate; }
@@ -1,5 +1,14 @@
 package com.nicoceron.nimblev5.domain;
 
 public enum TaskPriority {
-    HIGH, MEDIUM, LOW
-}
\ No newline at end of file
+    HIGH(0), MEDIUM(1), LOW(2);
+
+    private final int rank;
+
+    TaskPriority(int rank) {
+        this.rank = rank;
+    }
+
+    /** Sort key stored in TASK.priority_rank: lower is more urgent. */
+    public int getRank() { return rank; }
+}
@@ -0,0 +1,48 @@
+package com.nicoceron.nimblev5.domain;
+
+import jakarta.persistence.*;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Marker left behind by a deleted task, so delta sync can tell clients to drop it.
+ * The deletion time comes from the database clock, like {@code Task.lastModifiedDate}.
+ */
+@Entity
+@Table(name = "TASK_TOMBSTONE")
+public class TaskTombstone {
+
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "deleted_date", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date deletedDate;
+
+    public TaskTombstone() {
+    }
+
+    public TaskTombstone(Long taskId, Long userId) {
+        this.taskId = taskId;
+        this.userId = userId;
+    }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Date getDeletedDate() { return deletedDate; }
+    public void setDeletedDate(Date deletedDate) { this.deletedDate = deletedDate; }
+
+    @Override
+    public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; TaskTombstone that = (TaskTombstone) o; return Objects.equals(taskId, that.taskId); }
+    @Override
+    public int hashCode() { return Objects.hash(taskId); }
+    @Override
+    public String toString() { return "TaskTombstone{" + "taskId=" + taskId + ", userId=" + userId + ", deletedDate=" + deletedDate + '}'; }
+}
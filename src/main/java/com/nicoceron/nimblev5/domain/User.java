@@ -11,7 +11,7 @@ import java.util.Objects;
 @Table(name = "USERS")
 @SequenceGenerator(name = "users_seq_gen",
         sequenceName = "USERS_SEQ",
-        allocationSize = 1)
+        allocationSize = 50) // Must match INCREMENT BY of USERS_SEQ, see db/migration
 public class User {
 
     @Id
@@ -0,0 +1,33 @@
+package com.nicoceron.nimblev5.dto;
+
+import com.nicoceron.nimblev5.domain.User;
+
+import java.util.Date;
+
+/**
+ * Result of a successful login: the user (without password hash) and a session token. Send the
+ * token as {@code Authorization: Bearer <sessionToken>} on later calls instead of credentials,
+ * until {@code expiresAt}; then log in again.
+ */
+public class LoginResult {
+
+    private User user;
+    private String sessionToken;
+    private Date expiresAt;
+
+    public LoginResult() {
+    }
+
+    public LoginResult(User user, String sessionToken, Date expiresAt) {
+        this.user = user;
+        this.sessionToken = sessionToken;
+        this.expiresAt = expiresAt;
+    }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public String getSessionToken() { return sessionToken; }
+    public void setSessionToken(String sessionToken) { this.sessionToken = sessionToken; }
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+}
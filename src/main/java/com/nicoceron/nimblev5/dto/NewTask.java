@@ -0,0 +1,28 @@
+package com.nicoceron.nimblev5.dto;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+
+import java.util.Date;
+
+/**
+ * One entry of a bulk {@code createTasks} request.
+ */
+public class NewTask {
+
+    private Long userId;
+    private String title;
+    private String description;
+    private Date dueDate;
+    private TaskPriority priority;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Date getDueDate() { return dueDate; }
+    public void setDueDate(Date dueDate) { this.dueDate = dueDate; }
+    public TaskPriority getPriority() { return priority; }
+    public void setPriority(TaskPriority priority) { this.priority = priority; }
+}
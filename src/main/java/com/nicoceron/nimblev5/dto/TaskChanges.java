@@ -0,0 +1,34 @@
+package com.nicoceron.nimblev5.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result of a delta sync: tasks created or modified since the client's watermark, IDs of tasks
+ * deleted since then, and the watermark to send next time.
+ * <p>
+ * The window overlaps the previous one slightly, so a task may be reported again; apply the
+ * changes as idempotent upserts and deletes. When {@code resyncRequired} is set, the lists are
+ * empty: reload the full list (e.g. with {@code getTasksForUserPage}) and continue from this
+ * response's watermark.
+ */
+public class TaskChanges {
+
+    private List<TaskView> changed = new ArrayList<>();
+    private List<Long> deletedTaskIds = new ArrayList<>();
+    private Date watermark;
+    private boolean resyncRequired;
+
+    public TaskChanges() {
+    }
+
+    public List<TaskView> getChanged() { return changed; }
+    public void setChanged(List<TaskView> changed) { this.changed = changed; }
+    public List<Long> getDeletedTaskIds() { return deletedTaskIds; }
+    public void setDeletedTaskIds(List<Long> deletedTaskIds) { this.deletedTaskIds = deletedTaskIds; }
+    public Date getWatermark() { return watermark; }
+    public void setWatermark(Date watermark) { this.watermark = watermark; }
+    public boolean isResyncRequired() { return resyncRequired; }
+    public void setResyncRequired(boolean resyncRequired) { this.resyncRequired = resyncRequired; }
+}
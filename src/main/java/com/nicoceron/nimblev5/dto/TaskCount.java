@@ -0,0 +1,24 @@
+package com.nicoceron.nimblev5.dto;
+
+/**
+ * Number of tasks in one bucket of a {@link TaskSummary}, e.g. status {@code COMPLETED}.
+ * {@code NONE} stands for tasks where the field is not set.
+ */
+public class TaskCount {
+
+    private String name;
+    private long count;
+
+    public TaskCount() {
+    }
+
+    public TaskCount(String name, long count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,27 @@
+package com.nicoceron.nimblev5.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bounded page of tasks. Pass {@code nextPageToken} back to fetch the following page;
+ * it is null once the last page has been returned.
+ */
+public class TaskPage {
+
+    private List<TaskView> tasks = new ArrayList<>();
+    private String nextPageToken;
+
+    public TaskPage() {
+    }
+
+    public TaskPage(List<TaskView> tasks, String nextPageToken) {
+        this.tasks = tasks;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<TaskView> getTasks() { return tasks; }
+    public void setTasks(List<TaskView> tasks) { this.tasks = tasks; }
+    public String getNextPageToken() { return nextPageToken; }
+    public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+}
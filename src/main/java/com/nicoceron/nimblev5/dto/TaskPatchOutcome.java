@@ -0,0 +1,13 @@
+package com.nicoceron.nimblev5.dto;
+
+/**
+ * What {@code patchTask} did with a patch.
+ */
+public enum TaskPatchOutcome {
+    /** The patch was applied; the result carries the new version. */
+    UPDATED,
+    /** The task was changed since the caller read it; nothing was written. The result carries the current state. */
+    CONFLICT,
+    /** No task with that ID. */
+    NOT_FOUND
+}
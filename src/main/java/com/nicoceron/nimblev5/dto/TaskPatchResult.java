@@ -0,0 +1,26 @@
+package com.nicoceron.nimblev5.dto;
+
+/**
+ * Result of {@code patchTask}. On {@link TaskPatchOutcome#UPDATED} {@code task} is the patched
+ * task (its {@code lastModifiedDate} is set by the database and not read back, so it is null);
+ * on {@link TaskPatchOutcome#CONFLICT} it is the current task, to merge with and retry against
+ * its version; on {@link TaskPatchOutcome#NOT_FOUND} it is null.
+ */
+public class TaskPatchResult {
+
+    private TaskPatchOutcome outcome;
+    private TaskView task;
+
+    public TaskPatchResult() {
+    }
+
+    public TaskPatchResult(TaskPatchOutcome outcome, TaskView task) {
+        this.outcome = outcome;
+        this.task = task;
+    }
+
+    public TaskPatchOutcome getOutcome() { return outcome; }
+    public void setOutcome(TaskPatchOutcome outcome) { this.outcome = outcome; }
+    public TaskView getTask() { return task; }
+    public void setTask(TaskView task) { this.task = task; }
+}
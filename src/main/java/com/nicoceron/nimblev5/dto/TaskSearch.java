@@ -0,0 +1,46 @@
+package com.nicoceron.nimblev5.dto;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Filter for {@code searchTasks}. Only {@code userId} is required; every other criterion is
+ * optional and they combine with AND. An empty status or priority list means "any".
+ * The due-date range is inclusive and excludes tasks without a due date. The title prefix is
+ * case-sensitive.
+ */
+public class TaskSearch {
+
+    private Long userId;
+    private List<TaskStatus> statuses = new ArrayList<>();
+    private List<TaskPriority> priorities = new ArrayList<>();
+    private Date dueFrom;
+    private Date dueTo;
+    private String titlePrefix;
+    private TaskSortOrder sortOrder;
+    private Integer pageSize;
+    private String pageToken;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public List<TaskStatus> getStatuses() { return statuses; }
+    public void setStatuses(List<TaskStatus> statuses) { this.statuses = statuses; }
+    public List<TaskPriority> getPriorities() { return priorities; }
+    public void setPriorities(List<TaskPriority> priorities) { this.priorities = priorities; }
+    public Date getDueFrom() { return dueFrom; }
+    public void setDueFrom(Date dueFrom) { this.dueFrom = dueFrom; }
+    public Date getDueTo() { return dueTo; }
+    public void setDueTo(Date dueTo) { this.dueTo = dueTo; }
+    public String getTitlePrefix() { return titlePrefix; }
+    public void setTitlePrefix(String titlePrefix) { this.titlePrefix = titlePrefix; }
+    public TaskSortOrder getSortOrder() { return sortOrder; }
+    public void setSortOrder(TaskSortOrder sortOrder) { this.sortOrder = sortOrder; }
+    public Integer getPageSize() { return pageSize; }
+    public void setPageSize(Integer pageSize) { this.pageSize = pageSize; }
+    public String getPageToken() { return pageToken; }
+    public void setPageToken(String pageToken) { this.pageToken = pageToken; }
+}
@@ -0,0 +1,24 @@
+package com.nicoceron.nimblev5.dto;
+
+/**
+ * One result of {@code fullTextSearch}: the task and its relevance score (higher is better;
+ * only comparable within one result list).
+ */
+public class TaskSearchHit {
+
+    private TaskView task;
+    private double score;
+
+    public TaskSearchHit() {
+    }
+
+    public TaskSearchHit(TaskView task, double score) {
+        this.task = task;
+        this.score = score;
+    }
+
+    public TaskView getTask() { return task; }
+    public void setTask(TaskView task) { this.task = task; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
@@ -0,0 +1,11 @@
+package com.nicoceron.nimblev5.dto;
+
+/**
+ * Result order of {@code searchTasks}. Ties are broken by task ID, so paging is stable.
+ */
+public enum TaskSortOrder {
+    /** Earliest due date first, then most urgent priority. Tasks without a due date sort last on Oracle. */
+    DUE_DATE,
+    /** Most urgent priority first (HIGH, MEDIUM, LOW), then earliest due date. */
+    PRIORITY
+}
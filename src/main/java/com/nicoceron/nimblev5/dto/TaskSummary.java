@@ -0,0 +1,35 @@
+package com.nicoceron.nimblev5.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Dashboard figures for one user's tasks. A task is overdue when it has a due date in the past
+ * and is not {@code COMPLETED}; {@code asOf} is the instant the overdue count refers to.
+ */
+public class TaskSummary {
+
+    private Long userId;
+    private long totalCount;
+    private long overdueCount;
+    private List<TaskCount> byStatus = new ArrayList<>();
+    private List<TaskCount> byPriority = new ArrayList<>();
+    private Date asOf;
+
+    public TaskSummary() {
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public long getTotalCount() { return totalCount; }
+    public void setTotalCount(long totalCount) { this.totalCount = totalCount; }
+    public long getOverdueCount() { return overdueCount; }
+    public void setOverdueCount(long overdueCount) { this.overdueCount = overdueCount; }
+    public List<TaskCount> getByStatus() { return byStatus; }
+    public void setByStatus(List<TaskCount> byStatus) { this.byStatus = byStatus; }
+    public List<TaskCount> getByPriority() { return byPriority; }
+    public void setByPriority(List<TaskCount> byPriority) { this.byPriority = byPriority; }
+    public Date getAsOf() { return asOf; }
+    public void setAsOf(Date asOf) { this.asOf = asOf; }
+}
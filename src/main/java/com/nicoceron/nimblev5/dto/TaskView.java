@@ -0,0 +1,78 @@
+package com.nicoceron.nimblev5.dto;
+
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of a task with just the columns the SOAP contract needs.
+ * Built directly by JPQL constructor expressions (see {@code TaskDao.VIEW_SELECT}), so it is
+ * never managed by the persistence context and carries only the owner's ID, not the User.
+ */
+public class TaskView {
+
+    private Long taskId;
+    private Long userId;
+    private String title;
+    private String description;
+    private Date dueDate;
+    private TaskPriority priority;
+    private TaskStatus status;
+    private Date createdDate;
+    private Date lastModifiedDate;
+    private Long version;
+
+    public TaskView() {
+    }
+
+    public TaskView(Long taskId, Long userId, String title, String description, Date dueDate,
+                    TaskPriority priority, TaskStatus status, Date createdDate, Date lastModifiedDate, Long version) {
+        this.taskId = taskId;
+        this.userId = userId;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.status = status;
+        this.createdDate = createdDate;
+        this.lastModifiedDate = lastModifiedDate;
+        this.version = version;
+    }
+
+    /** Detached copy of an entity's current state; later changes to the entity do not show through. */
+    public static TaskView of(Task task) {
+        return new TaskView(task.getTaskId(), task.getUserId(), task.getTitle(), task.getDescription(),
+                copy(task.getDueDate()), task.getPriority(), task.getStatus(),
+                copy(task.getCreatedDate()), copy(task.getLastModifiedDate()), task.getVersion());
+    }
+
+    private static Date copy(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Date getDueDate() { return dueDate; }
+    public void setDueDate(Date dueDate) { this.dueDate = dueDate; }
+    public TaskPriority getPriority() { return priority; }
+    public void setPriority(TaskPriority priority) { this.priority = priority; }
+    public TaskStatus getStatus() { return status; }
+    public void setStatus(TaskStatus status) { this.status = status; }
+    public Date getCreatedDate() { return createdDate; }
+    public void setCreatedDate(Date createdDate) { this.createdDate = createdDate; }
+    public Date getLastModifiedDate() { return lastModifiedDate; }
+    public void setLastModifiedDate(Date lastModifiedDate) { this.lastModifiedDate = lastModifiedDate; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @Override
+    public String toString() { return "TaskView{" + "taskId=" + taskId + ", userId=" + userId + ", title='" + title + '\'' + ", dueDate=" + dueDate + ", priority=" + priority + ", status=" + status + ", version=" + version + '}'; }
+}
@@ -0,0 +1,32 @@
+package com.nicoceron.nimblev5.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a conditional task list read. If {@code notModified} is true the caller's copy is
+ * current and {@code tasks} is empty; otherwise {@code tasks} is the full list. Either way, pass
+ * {@code versionTag} as {@code ifNoneMatch} on the next call.
+ */
+public class VersionedTaskList {
+
+    private boolean notModified;
+    private String versionTag;
+    private List<TaskView> tasks = new ArrayList<>();
+
+    public VersionedTaskList() {
+    }
+
+    public VersionedTaskList(boolean notModified, String versionTag, List<TaskView> tasks) {
+        this.notModified = notModified;
+        this.versionTag = versionTag;
+        this.tasks = tasks;
+    }
+
+    public boolean isNotModified() { return notModified; }
+    public void setNotModified(boolean notModified) { this.notModified = notModified; }
+    public String getVersionTag() { return versionTag; }
+    public void setVersionTag(String versionTag) { this.versionTag = versionTag; }
+    public List<TaskView> getTasks() { return tasks; }
+    public void setTasks(List<TaskView> tasks) { this.tasks = tasks; }
+}
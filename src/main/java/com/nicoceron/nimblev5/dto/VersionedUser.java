@@ -0,0 +1,31 @@
+package com.nicoceron.nimblev5.dto;
+
+import com.nicoceron.nimblev5.domain.User;
+
+/**
+ * Result of a conditional user read. If {@code notModified} is true the caller's copy is current
+ * and {@code user} is null; otherwise {@code user} is the user, or null if there is none. Either
+ * way, pass {@code versionTag} as {@code ifNoneMatch} on the next call.
+ */
+public class VersionedUser {
+
+    private boolean notModified;
+    private String versionTag;
+    private User user;
+
+    public VersionedUser() {
+    }
+
+    public VersionedUser(boolean notModified, String versionTag, User user) {
+        this.notModified = notModified;
+        this.versionTag = versionTag;
+        this.user = user;
+    }
+
+    public boolean isNotModified() { return notModified; }
+    public void setNotModified(boolean notModified) { this.notModified = notModified; }
+    public String getVersionTag() { return versionTag; }
+    public void setVersionTag(String versionTag) { this.versionTag = versionTag; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+}
@@ -0,0 +1,59 @@
+package com.nicoceron.nimblev5.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link OperationMetrics} of every intercepted method, keyed by
+ * {@code SimpleClassName.methodName}. Overloads share one entry.
+ */
+@ApplicationScoped
+public class MetricsRegistry implements MetricsSource {
+
+    // Method lookups hit this map on every call; Method.hashCode/equals do not allocate.
+    private final ConcurrentMap<Method, OperationMetrics> byMethod = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OperationMetrics> byName = new ConcurrentHashMap<>();
+
+    public OperationMetrics forMethod(Method method) {
+        OperationMetrics metrics = byMethod.get(method);
+        if (metrics == null) {
+            metrics = byMethod.computeIfAbsent(method,
+                    m -> forName(m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        }
+        return metrics;
+    }
+
+    public OperationMetrics forName(String name) {
+        return byName.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    public List<OperationMetrics> getAll() {
+        List<OperationMetrics> all = new ArrayList<>(byName.values());
+        Collections.sort(all, Comparator.comparing(OperationMetrics::getName));
+        return all;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        List<OperationMetrics> all = getAll();
+        writer.help("nimble_operation_calls_total", "counter", "Calls of instrumented SOAP operations and DAO methods.");
+        for (OperationMetrics metrics : all) {
+            writer.sample("nimble_operation_calls_total", "operation", metrics.getName(), metrics.getCalls());
+        }
+        writer.help("nimble_operation_errors_total", "counter", "Calls that ended with an exception.");
+        for (OperationMetrics metrics : all) {
+            writer.sample("nimble_operation_errors_total", "operation", metrics.getName(), metrics.getErrors());
+        }
+        writer.help("nimble_operation_latency_seconds", "summary", "Latency of instrumented operations.");
+        for (OperationMetrics metrics : all) {
+            writer.latency("nimble_operation_latency_seconds", "operation", metrics.getName(), metrics.getLatency());
+        }
+    }
+}
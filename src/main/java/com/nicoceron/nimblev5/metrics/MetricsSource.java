@@ -0,0 +1,10 @@
+package com.nicoceron.nimblev5.metrics;
+
+/**
+ * A bean that contributes metrics to the {@code /metrics} endpoint. Every CDI bean implementing
+ * this interface is picked up automatically.
+ */
+public interface MetricsSource {
+
+    void writeMetrics(MetricsWriter writer);
+}
@@ -0,0 +1,57 @@
+package com.nicoceron.nimblev5.metrics;
+
+import java.io.PrintWriter;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ */
+public final class MetricsWriter {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final PrintWriter out;
+
+    public MetricsWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    public void help(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    public void sample(String name, double value) {
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    public void sample(String name, String label, String labelValue, double value) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(labelValue)).append("\"} ")
+                .append(format(value)).append('\n');
+    }
+
+    /**
+     * Writes a summary (p50/p95/p99, sum, count) plus a separate {@code _max} gauge.
+     * Pass a null label to write an unlabelled series.
+     */
+    public void latency(String name, String label, String labelValue, LatencyHistogram histogram) {
+        String labels = label == null ? "" : label + "=\"" + escape(labelValue) + "\"";
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        for (double quantile : QUANTILES) {
+            out.append(name).append(prefix).append("quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                    .append(format(histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND)).append('\n');
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(format(histogram.getTotalNanos() / NANOS_PER_SECOND)).append('\n');
+        out.append(name).append("_count").append(suffix).append(format(histogram.getCount())).append('\n');
+        out.append(name).append("_max").append(suffix).append(format(histogram.getMaxNanos() / NANOS_PER_SECOND)).append('\n');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,65 @@
+package com.nicoceron.nimblev5.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every call of a {@link Timed} bean. Apart from the container's own invocation
+ * machinery, nothing is allocated per call once the method's metrics entry exists.
+ * <p>
+ * For JAX-RS methods with a {@code @Suspended AsyncResponse} the method returns as soon as the
+ * work is dispatched, so they are timed until the response completes instead.
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class TimedInterceptor {
+
+    private static final int NOT_SUSPENDED = -1;
+
+    // Index of the AsyncResponse parameter per method, or NOT_SUSPENDED; static since interceptor instances follow their bean's scope
+    private static final ConcurrentMap<Method, Integer> ASYNC_RESPONSE_INDEX = new ConcurrentHashMap<>();
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        OperationMetrics metrics = registry.forMethod(context.getMethod());
+        long start = System.nanoTime();
+        int suspended = ASYNC_RESPONSE_INDEX.computeIfAbsent(context.getMethod(), TimedInterceptor::findAsyncResponse);
+        if (suspended != NOT_SUSPENDED) {
+            AsyncResponse response = (AsyncResponse) context.getParameters()[suspended];
+            // Also called when the method throws before dispatching, so this is the only record
+            response.register((CompletionCallback) error -> metrics.record(System.nanoTime() - start, error != null));
+            return context.proceed();
+        }
+        boolean failed = true;
+        try {
+            Object result = context.proceed();
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static int findAsyncResponse(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == AsyncResponse.class) {
+                return i;
+            }
+        }
+        return NOT_SUSPENDED;
+    }
+}
@@ -0,0 +1,79 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.service.AsyncExecutor;
+import com.nicoceron.nimblev5.service.UserVersions;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Completes suspended requests from {@link AsyncExecutor} tasks, so the container's request
+ * thread is released as soon as the work is dispatched. Failures are resumed as exceptions and
+ * go through the usual exception mappers; requests still pending after
+ * {@code nimble.rest.asyncTimeoutSeconds} get {@code 503}.
+ */
+final class AsyncResponses {
+
+    private static final long TIMEOUT_SECONDS = Long.getLong("nimble.rest.asyncTimeoutSeconds", 30L);
+    private static final CacheControl REVALIDATE = CacheControl.valueOf("private, no-cache");
+
+    private AsyncResponses() {
+    }
+
+    /** Runs {@code work} (database reads, then building the body) off the request thread and resumes with its result. */
+    static void submit(AsyncExecutor executor, AsyncResponse response, Supplier<StreamingOutput> work) {
+        submit(executor, response, work, null);
+    }
+
+    /**
+     * Conditional variant for per-user data. If {@code ifNoneMatch} names the user's current
+     * version stamp, answers {@code 304} at once without running {@code work}; otherwise sends
+     * the body with the stamp as a weak ETag (weak, because gzip changes the bytes).
+     */
+    static void submitIfModified(AsyncExecutor executor, AsyncResponse response, UserVersions versions,
+                                 Long userId, String ifNoneMatch, Supplier<StreamingOutput> work) {
+        String versionTag = versions.current(userId); // before the read, see UserVersions
+        EntityTag etag = new EntityTag(versionTag, true);
+        if (versions.matches(versionTag, listedTag(ifNoneMatch, versionTag))) {
+            response.resume(Response.notModified(etag).cacheControl(REVALIDATE).build());
+            return;
+        }
+        submit(executor, response, work, etag);
+    }
+
+    private static void submit(AsyncExecutor executor, AsyncResponse response, Supplier<StreamingOutput> work, EntityTag etag) {
+        response.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        executor.submit(work).whenComplete((body, error) -> {
+            if (error != null) {
+                response.resume(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else if (etag != null) {
+                response.resume(Response.ok(body).tag(etag).cacheControl(REVALIDATE).build());
+            } else {
+                response.resume(body);
+            }
+        });
+    }
+
+    /** {@code versionTag} if the If-None-Match header lists it (or is "*"), else the raw header. */
+    private static String listedTag(String ifNoneMatch, String versionTag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        for (String listed : ifNoneMatch.split(",")) {
+            String tag = listed.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals('"' + versionTag + '"')) {
+                return versionTag;
+            }
+        }
+        return ifNoneMatch;
+    }
+}
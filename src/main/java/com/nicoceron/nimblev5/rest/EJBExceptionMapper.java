@@ -0,0 +1,38 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.service.ServerBusyException;
+import com.nicoceron.nimblev5.service.SessionException;
+import jakarta.ejb.EJBException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The container wraps runtime exceptions thrown by the stateless services in an
+ * {@link EJBException}; unwrap validation failures so they still surface as {@code 400},
+ * overload so it still surfaces as {@code 503}, and another user's task as {@code 403}.
+ */
+@Provider
+public class EJBExceptionMapper implements ExceptionMapper<EJBException> {
+
+    private static final Logger LOG = Logger.getLogger(EJBExceptionMapper.class.getName());
+
+    @Override
+    public Response toResponse(EJBException exception) {
+        Throwable cause = exception.getCausedByException() != null ? exception.getCausedByException() : exception.getCause();
+        if (cause instanceof IllegalArgumentException) {
+            return IllegalArgumentExceptionMapper.badRequest(cause.getMessage());
+        }
+        if (cause instanceof SessionException) {
+            return new SessionExceptionMapper().toResponse((SessionException) cause);
+        }
+        if (cause instanceof ServerBusyException) {
+            return new ServerBusyExceptionMapper().toResponse((ServerBusyException) cause);
+        }
+        LOG.log(Level.SEVERE, "Unexpected error in REST request", exception);
+        return Response.serverError().build();
+    }
+}
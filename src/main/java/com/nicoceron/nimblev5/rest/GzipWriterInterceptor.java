@@ -0,0 +1,80 @@
+package com.nicoceron.nimblev5.rest;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wraps the entity stream of {@link Compress} methods in gzip when the request's
+ * {@code Accept-Encoding} allows it. Streaming output stays streaming: the gzip stream is
+ * flushed whenever the writer flushes.
+ */
+@Provider
+@Compress
+public class GzipWriterInterceptor implements WriterInterceptor {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> responseHeaders = context.getHeaders();
+        responseHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip()) {
+            context.proceed();
+            return;
+        }
+        responseHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+        OutputStream original = context.getOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(original, BUFFER_SIZE, true);
+        context.setOutputStream(gzip);
+        try {
+            context.proceed();
+        } finally {
+            gzip.finish();
+            context.setOutputStream(original);
+        }
+    }
+
+    private boolean acceptsGzip() {
+        List<String> values = requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if ("gzip".equalsIgnoreCase(parts[0].trim()) && !isZeroQuality(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].replace(" ", "");
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) == 0.0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nicoceron.nimblev5.rest;
+
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps validation failures from the service layer to {@code 400 Bad Request} with a JSON body,
+ * mirroring the SOAP endpoints, which report them as faults.
+ */
+@Provider
+public class IllegalArgumentExceptionMapper implements ExceptionMapper<IllegalArgumentException> {
+
+    @Override
+    public Response toResponse(IllegalArgumentException exception) {
+        return badRequest(exception.getMessage());
+    }
+
+    static Response badRequest(String message) {
+        return error(Response.Status.BAD_REQUEST, message);
+    }
+
+    /** A JSON {@code {"error": message}} response with the given status. */
+    static Response error(Response.Status status, String message) {
+        StreamingOutput body = out -> {
+            try (JsonGenerator json = JsonWriters.open(out)) {
+                json.writeStartObject();
+                JsonWriters.writeString(json, "error", message);
+                json.writeEnd();
+            }
+        };
+        return Response.status(status).type(MediaType.APPLICATION_JSON).entity(body).build();
+    }
+}
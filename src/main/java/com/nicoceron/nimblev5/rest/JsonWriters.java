@@ -0,0 +1,118 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.TaskChanges;
+import com.nicoceron.nimblev5.dto.TaskCount;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes the REST representations with the streaming JSON-P generator, so no intermediate
+ * object tree is built. Dates are ISO-8601 UTC instants; null fields are written as JSON null.
+ */
+final class JsonWriters {
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Collections.<String, Object>emptyMap());
+
+    private JsonWriters() {
+    }
+
+    static JsonGenerator open(OutputStream out) {
+        return GENERATORS.createGenerator(out, StandardCharsets.UTF_8);
+    }
+
+    static void writeTask(JsonGenerator json, TaskView task) {
+        json.writeStartObject();
+        writeNumber(json, "taskId", task.getTaskId());
+        writeNumber(json, "userId", task.getUserId());
+        writeString(json, "title", task.getTitle());
+        writeString(json, "description", task.getDescription());
+        writeDate(json, "dueDate", task.getDueDate());
+        writeString(json, "priority", task.getPriority() != null ? task.getPriority().name() : null);
+        writeString(json, "status", task.getStatus() != null ? task.getStatus().name() : null);
+        writeDate(json, "createdDate", task.getCreatedDate());
+        writeDate(json, "lastModifiedDate", task.getLastModifiedDate());
+        writeNumber(json, "version", task.getVersion());
+        json.writeEnd();
+    }
+
+    static void writeSummary(JsonGenerator json, TaskSummary summary) {
+        json.writeStartObject();
+        writeNumber(json, "userId", summary.getUserId());
+        json.write("totalCount", summary.getTotalCount());
+        json.write("overdueCount", summary.getOverdueCount());
+        writeCounts(json, "byStatus", summary.getByStatus());
+        writeCounts(json, "byPriority", summary.getByPriority());
+        writeDate(json, "asOf", summary.getAsOf());
+        json.writeEnd();
+    }
+
+    static void writeChanges(JsonGenerator json, TaskChanges changes) {
+        json.writeStartObject();
+        json.writeStartArray("changed");
+        for (TaskView task : changes.getChanged()) {
+            writeTask(json, task);
+        }
+        json.writeEnd();
+        json.writeStartArray("deletedTaskIds");
+        for (Long taskId : changes.getDeletedTaskIds()) {
+            json.write(taskId.longValue());
+        }
+        json.writeEnd();
+        writeDate(json, "watermark", changes.getWatermark());
+        json.write("resyncRequired", changes.isResyncRequired());
+        json.writeEnd();
+    }
+
+    /** Never includes the password hash. */
+    static void writeUser(JsonGenerator json, User user) {
+        json.writeStartObject();
+        writeNumber(json, "userId", user.getUserId());
+        writeString(json, "username", user.getUsername());
+        writeString(json, "email", user.getEmail());
+        writeDate(json, "createdDate", user.getCreatedDate());
+        json.writeEnd();
+    }
+
+    private static void writeCounts(JsonGenerator json, String name, List<TaskCount> counts) {
+        json.writeStartObject(name);
+        for (TaskCount count : counts) {
+            json.write(count.getName(), count.getCount());
+        }
+        json.writeEnd();
+    }
+
+    static void writeString(JsonGenerator json, String name, String value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator json, String name, Long value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, value.longValue());
+        }
+    }
+
+    private static void writeDate(JsonGenerator json, String name, Date value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, DateTimeFormatter.ISO_INSTANT.format(value.toInstant()));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.nicoceron.nimblev5.rest;
+
+import jakarta.ws.rs.ApplicationPath;
+import jakarta.ws.rs.core.Application;
+
+/**
+ * JSON/REST API under {@code /api}: a lighter alternative to the SOAP endpoints for
+ * high-volume reads. Resources and providers in this package are discovered automatically.
+ */
+@ApplicationPath("/api")
+public class NimbleRestApplication extends Application {
+}
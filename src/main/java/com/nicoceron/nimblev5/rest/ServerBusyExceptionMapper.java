@@ -0,0 +1,24 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.service.ServerBusyException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps {@link ServerBusyException} to {@code 503 Service Unavailable} with a short
+ * {@code Retry-After}, so well-behaved clients back off instead of retrying at once.
+ */
+@Provider
+public class ServerBusyExceptionMapper implements ExceptionMapper<ServerBusyException> {
+
+    private static final String RETRY_AFTER_SECONDS = Integer.toString(Integer.getInteger("nimble.rest.retryAfterSeconds", 1));
+
+    @Override
+    public Response toResponse(ServerBusyException exception) {
+        Response response = IllegalArgumentExceptionMapper.error(Response.Status.SERVICE_UNAVAILABLE, exception.getMessage());
+        response.getHeaders().putSingle(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return response;
+    }
+}
@@ -0,0 +1,25 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.service.SessionException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps {@link SessionException} to {@code 403 Forbidden} for another user's data, and to
+ * {@code 401 Unauthorized} with a Bearer challenge otherwise.
+ */
+@Provider
+public class SessionExceptionMapper implements ExceptionMapper<SessionException> {
+
+    @Override
+    public Response toResponse(SessionException exception) {
+        if (exception.getReason() == SessionException.Reason.FORBIDDEN) {
+            return IllegalArgumentExceptionMapper.error(Response.Status.FORBIDDEN, exception.getMessage());
+        }
+        Response response = IllegalArgumentExceptionMapper.error(Response.Status.UNAUTHORIZED, exception.getMessage());
+        response.getHeaders().putSingle(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        return response;
+    }
+}
@@ -0,0 +1,56 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.Timed;
+import com.nicoceron.nimblev5.service.AsyncExecutor;
+import com.nicoceron.nimblev5.service.Authenticated;
+import com.nicoceron.nimblev5.service.TaskService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.Optional;
+
+/**
+ * JSON read endpoint for single tasks; the lists of a user's tasks are in {@link UserTaskResource}.
+ * Requests are suspended and completed on the {@link AsyncExecutor}, so no container thread
+ * waits on the database.
+ */
+@Timed
+@Authenticated
+@RequestScoped
+@Path("tasks")
+@Produces(MediaType.APPLICATION_JSON)
+public class TaskResource {
+
+    @Inject
+    private TaskService taskService;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @GET
+    @Path("{taskId}")
+    public void getTask(@PathParam("taskId") Long taskId, @Suspended AsyncResponse response) {
+        AsyncResponses.submit(async, response, () -> {
+            Optional<TaskView> task = taskService.findTaskViewById(taskId);
+            if (!task.isPresent()) {
+                throw new NotFoundException("Task " + taskId + " not found.");
+            }
+            TaskView view = task.get();
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    JsonWriters.writeTask(json, view);
+                }
+            };
+        });
+    }
+}
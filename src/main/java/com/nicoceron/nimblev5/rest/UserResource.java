@@ -0,0 +1,81 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.metrics.Timed;
+import com.nicoceron.nimblev5.service.AsyncExecutor;
+import com.nicoceron.nimblev5.service.ReadCoalescer;
+import com.nicoceron.nimblev5.service.UserService;
+import com.nicoceron.nimblev5.service.UserVersions;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.Optional;
+
+/**
+ * JSON read endpoints for users. The password hash is never part of the representation.
+ * Requests complete asynchronously on the {@link AsyncExecutor}, like those of {@link TaskResource} and {@link UserTaskResource}.
+ */
+@Timed
+@RequestScoped
+@Path("users")
+@Produces(MediaType.APPLICATION_JSON)
+public class UserResource {
+
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private ReadCoalescer coalescer;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @Inject
+    private UserVersions userVersions;
+
+    @GET
+    @Path("{userId}")
+    public void getUser(@PathParam("userId") Long userId, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                        @Suspended AsyncResponse response) {
+        AsyncResponses.submitIfModified(async, response, userVersions, userId, ifNoneMatch, () -> {
+            Optional<User> user = coalescer.findUserById(userId);
+            if (!user.isPresent()) {
+                throw new NotFoundException("User " + userId + " not found.");
+            }
+            User found = user.get();
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    JsonWriters.writeUser(json, found);
+                }
+            };
+        });
+    }
+
+    @GET
+    @Path("availability")
+    public void isUsernameAvailable(@QueryParam("username") String username, @Suspended AsyncResponse response) {
+        if (username == null || username.trim().isEmpty()) {
+            throw new IllegalArgumentException("Username cannot be empty.");
+        }
+        AsyncResponses.submit(async, response, () -> {
+            boolean available = userService.isUsernameAvailable(username);
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    json.writeStartObject().write("username", username).write("available", available).writeEnd();
+                }
+            };
+        });
+    }
+}
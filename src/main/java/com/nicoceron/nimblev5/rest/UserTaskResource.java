@@ -0,0 +1,260 @@
+package com.nicoceron.nimblev5.rest;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskChanges;
+import com.nicoceron.nimblev5.dto.TaskPage;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import com.nicoceron.nimblev5.dto.TaskSearchHit;
+import com.nicoceron.nimblev5.dto.TaskSortOrder;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.Timed;
+import com.nicoceron.nimblev5.service.AsyncExecutor;
+import com.nicoceron.nimblev5.service.Authenticated;
+import com.nicoceron.nimblev5.service.TaskService;
+import com.nicoceron.nimblev5.service.UserVersions;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JSON read endpoints for the tasks of one user. List responses are streamed: rows are fetched
+ * one keyset page at a time and written to the response as soon as they are read, so memory use
+ * stays bounded however many tasks a user has. Every request is suspended and completed on the
+ * {@link AsyncExecutor}, so no container thread waits on the database.
+ * <p>
+ * Separate from {@link UserResource}: JAX-RS matches a request to one root resource by its
+ * path template and does not backtrack, so {@code users/{userId}/tasks...} needs its own root.
+ */
+@Timed
+@Authenticated
+@RequestScoped
+@Path("users/{userId}/tasks")
+@Produces(MediaType.APPLICATION_JSON)
+public class UserTaskResource {
+
+    /** Rows fetched per database round trip while streaming a full list. */
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("nimble.rest.streamFetchSize", 500);
+
+    @Inject
+    private TaskService taskService;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @Inject
+    private UserVersions userVersions;
+
+    /**
+     * Every task of the user as one JSON array, in due-date order. The array is written while
+     * the pages are being read; the client sees the first tasks before the last are loaded.
+     * Conditional: while the user's data is unchanged, {@code If-None-Match} gets a {@code 304}.
+     */
+    @GET
+    @Compress
+    public void getTasksForUser(@PathParam("userId") Long userId, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                @Suspended AsyncResponse response) {
+        AsyncResponses.submitIfModified(async, response, userVersions, userId, ifNoneMatch, () -> {
+            // Fetch the first page eagerly so bad input still maps to a clean error status.
+            TaskPage first = taskService.findTaskPageByUserId(userId, null, STREAM_FETCH_SIZE);
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    json.writeStartArray();
+                    TaskPage page = first;
+                    while (true) {
+                        for (TaskView task : page.getTasks()) {
+                            JsonWriters.writeTask(json, task);
+                        }
+                        json.flush();
+                        if (page.getNextPageToken() == null) {
+                            break;
+                        }
+                        // Each further page takes a database permit only while it is read, not while it is written
+                        String pageToken = page.getNextPageToken();
+                        page = async.withDbPermit(() -> taskService.findTaskPageByUserId(userId, pageToken, STREAM_FETCH_SIZE));
+                    }
+                    json.writeEnd();
+                }
+            };
+        });
+    }
+
+    @GET
+    @Path("summary")
+    public void getTaskSummary(@PathParam("userId") Long userId, @Suspended AsyncResponse response) {
+        AsyncResponses.submit(async, response, () -> {
+            TaskSummary summary = taskService.getTaskSummary(userId);
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    JsonWriters.writeSummary(json, summary);
+                }
+            };
+        });
+    }
+
+    /**
+     * Delta sync, see {@code TaskSoapService.getTasksChangedSince}. {@code since} is the
+     * ISO-8601 watermark of the previous response; omit it on first use.
+     */
+    @GET
+    @Compress
+    @Path("changes")
+    public void getTasksChangedSince(@PathParam("userId") Long userId, @QueryParam("since") String since,
+                                     @Suspended AsyncResponse response) {
+        Date watermark = parseInstant(since);
+        AsyncResponses.submit(async, response, () -> {
+            TaskChanges changes = taskService.getTasksChangedSince(userId, watermark);
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    JsonWriters.writeChanges(json, changes);
+                }
+            };
+        });
+    }
+
+    /**
+     * Multi-criteria search, see {@code TaskSoapService.searchTasks}. {@code status} and
+     * {@code priority} may be repeated; dates are ISO-8601 instants.
+     */
+    @GET
+    @Compress
+    @Path("search")
+    public void searchTasks(@PathParam("userId") Long userId,
+                            @QueryParam("status") List<String> statuses,
+                            @QueryParam("priority") List<String> priorities,
+                            @QueryParam("dueFrom") String dueFrom,
+                            @QueryParam("dueTo") String dueTo,
+                            @QueryParam("titlePrefix") String titlePrefix,
+                            @QueryParam("sort") String sort,
+                            @QueryParam("pageSize") Integer pageSize,
+                            @QueryParam("pageToken") String pageToken,
+                            @Suspended AsyncResponse response) {
+        TaskSearch search = new TaskSearch();
+        search.setUserId(userId);
+        search.setStatuses(parseEnums(TaskStatus.class, statuses));
+        search.setPriorities(parseEnums(TaskPriority.class, priorities));
+        search.setDueFrom(parseInstant(dueFrom));
+        search.setDueTo(parseInstant(dueTo));
+        search.setTitlePrefix(titlePrefix);
+        search.setSortOrder(sort == null || sort.isEmpty() ? null : parseEnum(TaskSortOrder.class, sort));
+        search.setPageSize(pageSize);
+        search.setPageToken(pageToken);
+        AsyncResponses.submit(async, response, () -> writePage(taskService.searchTasks(search)));
+    }
+
+    /** Ranked full-text search, see {@code TaskSoapService.fullTextSearch}. */
+    @GET
+    @Compress
+    @Path("fulltext")
+    public void fullTextSearch(@PathParam("userId") Long userId,
+                               @QueryParam("q") String query,
+                               @QueryParam("limit") Integer limit,
+                               @Suspended AsyncResponse response) {
+        AsyncResponses.submit(async, response, () -> {
+            List<TaskSearchHit> hits = taskService.fullTextSearch(userId, query, limit);
+            return out -> {
+                try (JsonGenerator json = JsonWriters.open(out)) {
+                    json.writeStartArray();
+                    for (TaskSearchHit hit : hits) {
+                        json.writeStartObject();
+                        json.write("score", hit.getScore());
+                        json.writeKey("task");
+                        JsonWriters.writeTask(json, hit.getTask());
+                        json.writeEnd();
+                    }
+                    json.writeEnd();
+                }
+            };
+        });
+    }
+
+    /**
+     * One bounded page, for clients that fetch incrementally. Pass {@code nextPageToken} back
+     * as {@code pageToken} to continue.
+     */
+    @GET
+    @Compress
+    @Path("page")
+    public void getTasksForUserPage(@PathParam("userId") Long userId,
+                                    @QueryParam("pageSize") Integer pageSize,
+                                    @QueryParam("pageToken") String pageToken,
+                                    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                    @Suspended AsyncResponse response) {
+        AsyncResponses.submitIfModified(async, response, userVersions, userId, ifNoneMatch,
+                () -> writePage(taskService.findTaskPageByUserId(userId, pageToken, pageSize)));
+    }
+
+    /** Archived tasks, newest first, paged like {@code tasks/page}. */
+    @GET
+    @Compress
+    @Path("archived")
+    public void getArchivedTasksPage(@PathParam("userId") Long userId,
+                                     @QueryParam("pageSize") Integer pageSize,
+                                     @QueryParam("pageToken") String pageToken,
+                                     @Suspended AsyncResponse response) {
+        AsyncResponses.submit(async, response, () -> writePage(taskService.findArchivedTaskPage(userId, pageToken, pageSize)));
+    }
+
+    private static StreamingOutput writePage(TaskPage page) {
+        return out -> {
+            try (JsonGenerator json = JsonWriters.open(out)) {
+                json.writeStartObject();
+                json.writeStartArray("tasks");
+                for (TaskView task : page.getTasks()) {
+                    JsonWriters.writeTask(json, task);
+                }
+                json.writeEnd();
+                JsonWriters.writeString(json, "nextPageToken", page.getNextPageToken());
+                json.writeEnd();
+            }
+        };
+    }
+
+    private static Date parseInstant(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Date.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp, expected ISO-8601 such as 2024-01-31T12:00:00Z: " + value, e);
+        }
+    }
+
+    private static <E extends Enum<E>> List<E> parseEnums(Class<E> type, List<String> values) {
+        List<E> parsed = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                parsed.add(parseEnum(type, value));
+            }
+        }
+        return parsed;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName() + ": " + value, e);
+        }
+    }
+}
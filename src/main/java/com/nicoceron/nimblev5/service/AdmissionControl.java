@@ -0,0 +1,110 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import com.nicoceron.nimblev5.util.AdaptiveLimiter;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * One {@link AdaptiveLimiter} per {@link OperationClass}, for the SOAP endpoints. When the
+ * database slows down, the limits shrink with the latency of each class, and calls beyond them
+ * are refused at once instead of piling up on container threads, so reads stay fast while
+ * writes are throttled and the other way round.
+ * <p>
+ * Per class, {@code nimble.admission.<class>.initialLimit} and {@code .maxLimit} bound the limit
+ * (defaults: read 64 / 512, write 32 / 256, login 2 / 8 per CPU); it never drops below
+ * {@code nimble.admission.minLimit} (default 2). Past the limit, up to
+ * {@code nimble.admission.maxQueue} callers (default 32) wait at most
+ * {@code nimble.admission.maxWaitMillis} (default 50) for a slot. {@code -Dnimble.admission.enabled=false}
+ * turns admission control off.
+ */
+@ApplicationScoped
+public class AdmissionControl implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(AdmissionControl.class.getName());
+
+    private final boolean enabled = !"false".equals(System.getProperty("nimble.admission.enabled"));
+    private final Map<OperationClass, AdaptiveLimiter> limiters = new EnumMap<>(OperationClass.class);
+
+    public AdmissionControl() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int minLimit = Integer.getInteger("nimble.admission.minLimit", 2);
+        int maxQueue = Integer.getInteger("nimble.admission.maxQueue", 32);
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("nimble.admission.maxWaitMillis", 50L));
+        limiters.put(OperationClass.READ, limiter("read", 64, 512, minLimit, maxQueue, maxWaitNanos));
+        limiters.put(OperationClass.WRITE, limiter("write", 32, 256, minLimit, maxQueue, maxWaitNanos));
+        limiters.put(OperationClass.LOGIN, limiter("login", 2 * cpus, 8 * cpus, minLimit, maxQueue, maxWaitNanos));
+        if (enabled) {
+            LOG.info("Admission limits start at " + limiters.get(OperationClass.READ).getLimit() + " reads, "
+                    + limiters.get(OperationClass.WRITE).getLimit() + " writes, " + limiters.get(OperationClass.LOGIN).getLimit() + " logins.");
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public AdaptiveLimiter limiter(OperationClass operationClass) {
+        return limiters.get(operationClass);
+    }
+
+    private static AdaptiveLimiter limiter(String name, int initialLimit, int maxLimit, int minLimit, int maxQueue, long maxWaitNanos) {
+        String prefix = "nimble.admission." + name + ".";
+        maxLimit = Integer.getInteger(prefix + "maxLimit", maxLimit);
+        initialLimit = Integer.getInteger(prefix + "initialLimit", Math.min(initialLimit, maxLimit));
+        return new AdaptiveLimiter(initialLimit, Math.min(minLimit, maxLimit), maxLimit, maxQueue, maxWaitNanos);
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_admission_enabled", "gauge", "1 if SOAP operations are admitted through adaptive concurrency limits.");
+        writer.sample("nimble_admission_enabled", enabled ? 1 : 0);
+        if (!enabled) {
+            return;
+        }
+        writer.help("nimble_admission_limit", "gauge", "Current concurrency limit, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_limit", "class", label(e.getKey()), e.getValue().getLimit());
+        }
+        writer.help("nimble_admission_in_flight", "gauge", "Admitted calls in progress, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_in_flight", "class", label(e.getKey()), e.getValue().getInFlight());
+        }
+        writer.help("nimble_admission_queue", "gauge", "Calls waiting for a slot, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_queue", "class", label(e.getKey()), e.getValue().getWaiting());
+        }
+        writer.help("nimble_admission_latency_seconds", "gauge", "Mean latency of the last closed window, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_latency_seconds", "class", label(e.getKey()), e.getValue().getLastWindowNanos() / 1e9);
+        }
+        writer.help("nimble_admission_latency_baseline_seconds", "gauge", "Moving baseline the window latency is compared with, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_latency_baseline_seconds", "class", label(e.getKey()), e.getValue().getBaselineNanos() / 1e9);
+        }
+        writer.help("nimble_admission_admitted_total", "counter", "Calls admitted, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_admitted_total", "class", label(e.getKey()), e.getValue().getAdmittedCount());
+        }
+        writer.help("nimble_admission_queued_total", "counter", "Calls that had to wait for a slot, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_queued_total", "class", label(e.getKey()), e.getValue().getQueuedCount());
+        }
+        writer.help("nimble_admission_rejected_total", "counter", "Calls refused as overloaded, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_rejected_total", "class", label(e.getKey()), e.getValue().getRejectedCount());
+        }
+        writer.help("nimble_admission_dropped_total", "counter", "Admitted calls that failed from a timeout or busy dependency, by operation class.");
+        for (Map.Entry<OperationClass, AdaptiveLimiter> e : limiters.entrySet()) {
+            writer.sample("nimble_admission_dropped_total", "class", label(e.getKey()), e.getValue().getDroppedCount());
+        }
+    }
+
+    private static String label(OperationClass operationClass) {
+        return operationClass.name().toLowerCase(Locale.ROOT);
+    }
+}
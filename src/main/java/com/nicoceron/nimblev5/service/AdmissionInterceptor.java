@@ -0,0 +1,105 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.util.AdaptiveLimiter;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.xml.soap.SOAPConstants;
+import jakarta.xml.soap.SOAPException;
+import jakarta.xml.soap.SOAPFactory;
+import jakarta.xml.soap.SOAPFault;
+import jakarta.xml.ws.soap.SOAPFaultException;
+
+import javax.xml.namespace.QName;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admits {@link Admitted} calls through the limiter of their {@link OperationClass}. A call that
+ * finds no slot is refused with a SOAP fault whose code is {@code soap:Server.Overloaded}, which
+ * clients can tell from other server faults and retry after backing off; nothing has been done
+ * for it. Calls that time out in the database or find another pool busy count as drops, which
+ * cut the limit at once.
+ */
+@Admitted
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 2) // inside TimedInterceptor, so refused calls are counted as errors
+public class AdmissionInterceptor {
+
+    private static final Logger LOG = Logger.getLogger(AdmissionInterceptor.class.getName());
+
+    /** Fault code of refused calls; SOAP 1.1 dot notation refines {@code Server}. */
+    public static final QName OVERLOADED = new QName(SOAPConstants.URI_NS_SOAP_1_1_ENVELOPE, "Server.Overloaded");
+
+    // Operation class per method; static since interceptor instances follow their bean's scope
+    private static final ConcurrentMap<Method, OperationClass> OPERATION_CLASSES = new ConcurrentHashMap<>();
+
+    private static volatile SOAPFactory soapFactory;
+
+    @Inject
+    private AdmissionControl admission;
+
+    @AroundInvoke
+    public Object admit(InvocationContext context) throws Exception {
+        if (!admission.isEnabled()) {
+            return context.proceed();
+        }
+        OperationClass operationClass = OPERATION_CLASSES.computeIfAbsent(context.getMethod(), AdmissionInterceptor::classify);
+        AdaptiveLimiter limiter = admission.limiter(operationClass);
+        if (!limiter.acquire()) {
+            throw overloaded(operationClass);
+        }
+        long start = System.nanoTime();
+        boolean drop = false;
+        try {
+            return context.proceed();
+        } catch (Exception e) {
+            drop = isOverload(e);
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, drop);
+        }
+    }
+
+    private static OperationClass classify(Method method) {
+        Admitted admitted = method.getAnnotation(Admitted.class);
+        if (admitted == null) {
+            admitted = method.getDeclaringClass().getAnnotation(Admitted.class);
+        }
+        return admitted != null ? admitted.value() : OperationClass.READ;
+    }
+
+    private static boolean isOverload(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QueryTimeoutException || t instanceof LockTimeoutException
+                    || t instanceof ServerBusyException || t instanceof PasswordHashingBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RuntimeException overloaded(OperationClass operationClass) {
+        String message = "Server overloaded (" + operationClass.name().toLowerCase(Locale.ROOT) + " operations), try again later.";
+        try {
+            SOAPFactory factory = soapFactory;
+            if (factory == null) {
+                soapFactory = factory = SOAPFactory.newInstance();
+            }
+            SOAPFault fault = factory.createFault(message, OVERLOADED);
+            return new SOAPFaultException(fault);
+        } catch (SOAPException | RuntimeException e) {
+            // No SAAJ implementation (e.g. outside the container): still refuse the call
+            LOG.log(Level.FINE, "Cannot create a SOAP fault", e);
+            return new ServerBusyException(message);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.nicoceron.nimblev5.service;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admits calls to the annotated endpoint (or method) through the concurrency limit of their
+ * {@link OperationClass}; see {@link AdmissionInterceptor}. A method annotation overrides the
+ * class of the type annotation.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Admitted {
+
+    @Nonbinding
+    OperationClass value() default OperationClass.READ;
+}
@@ -0,0 +1,207 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.LatencyHistogram;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Runs request work off the container's request threads, for endpoints that complete their
+ * responses asynchronously (the REST resources, through {@code @Suspended}).
+ * <p>
+ * On a JDK with virtual threads every task gets its own virtual thread, so a request blocked on
+ * JDBC costs a small heap-allocated stack rather than a platform thread. On older JDKs (the
+ * project still targets Java 8) a fixed pool of platform threads is used instead. Either way at
+ * most {@code nimble.async.maxInFlight} tasks are admitted; beyond that work is refused with
+ * {@link ServerBusyException} instead of queueing without bound.
+ * <p>
+ * Database access is bounded separately by a semaphore of {@code nimble.async.dbPermits}, which
+ * should not exceed the JDBC pool size. A task holds its permit only while its supplier runs, not
+ * while the response is written, so slow clients do not hold database slots. The SOAP endpoints
+ * stay synchronous, but their calls take the same permits (see {@link DbBounded}), so SOAP and
+ * REST together never run more database work at once than the pool can serve. Login and sign-up
+ * take a permit only around their queries, never while hashing a password.
+ */
+@ApplicationScoped
+public class AsyncExecutor implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(AsyncExecutor.class.getName());
+
+    private final int maxInFlight = Integer.getInteger("nimble.async.maxInFlight", 10_000);
+    private final int dbPermitCount = Integer.getInteger("nimble.async.dbPermits", 32);
+    private final long dbPermitTimeoutMillis = Long.getLong("nimble.async.dbPermitTimeoutMillis", 10_000L);
+    private final Semaphore dbPermits = new Semaphore(dbPermitCount, true);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dbPermitTimeouts = new LongAdder();
+    private final LatencyHistogram dbPermitWait = new LatencyHistogram();
+
+    @Resource
+    private ContextService contextService; // null outside a Jakarta EE container
+
+    public AsyncExecutor() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadPool(Integer.getInteger("nimble.async.threads", 4 * dbPermitCount));
+        LOG.info("Async request executor uses " + (virtualThreads ? "virtual threads" : "a pool of platform threads")
+                + ", " + dbPermitCount + " database permits.");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs {@code work} on the executor while holding a database permit. The future fails with
+     * {@link ServerBusyException} if the task is refused or times out waiting for a permit, and
+     * with whatever {@code work} throws otherwise. Dependent actions run on the executor thread.
+     * {@code work} runs as the submitting call's session user ({@link SessionTokens#currentUserId}).
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            result.completeExceptionally(new ServerBusyException("Too many requests in progress, try again later."));
+            return result;
+        }
+        Long sessionUserId = SessionTokens.currentUserId();
+        Runnable task = contextual(() -> {
+            try {
+                T value;
+                try {
+                    value = SessionTokens.callAs(sessionUserId, () -> withDbPermit(work));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                    return;
+                }
+                result.complete(value);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            result.completeExceptionally(new ServerBusyException("The request executor is shutting down.", e));
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code work} on the calling thread once a database permit is free, e.g. for the pages
+     * read while a streamed response is being written. Not reentrant: {@code work} must not call
+     * back into this method or into a task submitted here.
+     */
+    public <T> T withDbPermit(Supplier<T> work) {
+        acquireDbPermit();
+        try {
+            return work.get();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    /**
+     * {@link #withDbPermit} for work that throws checked exceptions, such as an intercepted call;
+     * see {@link DbBoundedInterceptor}. Not reentrant either.
+     */
+    public <T> T callWithDbPermit(Callable<T> work) throws Exception {
+        acquireDbPermit();
+        try {
+            return work.call();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private void acquireDbPermit() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = dbPermits.tryAcquire(dbPermitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException("Interrupted while waiting for a database slot.", e);
+        }
+        dbPermitWait.record(System.nanoTime() - start);
+        if (!acquired) {
+            dbPermitTimeouts.increment();
+            throw new ServerBusyException("Timed out waiting for a database slot, try again later.");
+        }
+    }
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public int getInFlight() { return inFlight.get(); }
+    public int getDbPermitsInUse() { return dbPermitCount - dbPermits.availablePermits(); }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_async_virtual_threads", "gauge", "1 if async requests run on virtual threads, 0 for the platform thread pool.");
+        writer.sample("nimble_async_virtual_threads", virtualThreads ? 1 : 0);
+        writer.help("nimble_async_in_flight", "gauge", "Async requests admitted and not yet completed.");
+        writer.sample("nimble_async_in_flight", getInFlight());
+        writer.help("nimble_async_rejected_total", "counter", "Async requests refused because maxInFlight was reached.");
+        writer.sample("nimble_async_rejected_total", rejected.sum());
+        writer.help("nimble_async_db_permits", "gauge", "Database permits in total.");
+        writer.sample("nimble_async_db_permits", dbPermitCount);
+        writer.help("nimble_async_db_permits_in_use", "gauge", "Database permits currently held.");
+        writer.sample("nimble_async_db_permits_in_use", getDbPermitsInUse());
+        writer.help("nimble_async_db_permit_timeouts_total", "counter", "Requests that gave up waiting for a database permit.");
+        writer.sample("nimble_async_db_permit_timeouts_total", dbPermitTimeouts.sum());
+        writer.help("nimble_async_db_permit_wait_seconds", "summary", "Time spent waiting for a database permit.");
+        writer.latency("nimble_async_db_permit_wait_seconds", null, null, dbPermitWait);
+    }
+
+    /** Carries the container context (naming, class loader, security) of the submitting thread. */
+    private Runnable contextual(Runnable task) {
+        return contextService != null ? contextService.contextualRunnable(task) : task;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (Boolean.getBoolean("nimble.async.platformThreads")) {
+            return null;
+        }
+        try {
+            // JDK 21+; looked up reflectively so the code still compiles and runs on Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "nimble-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Unbounded queue: admission is already capped by maxInFlight
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+}
@@ -0,0 +1,25 @@
+package com.nicoceron.nimblev5.service;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Checks the session token of every call to the annotated endpoint (or method); see
+ * {@link SessionInterceptor}. A method annotation overrides the type annotation.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Authenticated {
+
+    /** Rejects calls without a token even while {@code nimble.session.required} is off. */
+    @Nonbinding
+    boolean required() default false;
+}
@@ -0,0 +1,238 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.dao.UserDao;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.TaskView;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJBException;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.UserTransaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk export and import of users and tasks, for backups and migrations between databases.
+ * <p>
+ * An export reads the whole table through a forward-only cursor in a single read transaction,
+ * which may run for up to {@code nimble.transfer.exportTimeoutSeconds}; memory use does not grow
+ * with the table. An import takes rows from an iterator, which may parse them from a stream as
+ * it goes, and commits every {@code nimble.transfer.importBatchSize} rows as one JDBC batch. If a
+ * row is invalid or a batch fails, the batches before it stay committed.
+ * <p>
+ * Imports keep IDs, timestamps and task versions as exported, so they are meant for empty
+ * tables. When an import ends, successfully or not, USERS_SEQ or TASK_SEQ is moved past the
+ * highest ID in the table, so rows created afterwards do not collide with imported ones. Users
+ * must be imported before their tasks.
+ * <p>
+ * Transactions are demarcated here rather than by the container: one transaction per batch,
+ * and a longer timeout for exports.
+ */
+@Stateless
+@TransactionManagement(TransactionManagementType.BEAN)
+public class DataTransferService {
+
+    private static final Logger LOG = Logger.getLogger(DataTransferService.class.getName());
+
+    static final int MAX_IMPORT_BATCH = 10_000;
+
+    private final int fetchSize = Integer.getInteger("nimble.transfer.fetchSize", 500);
+    private final int importBatchSize = Math.min(Integer.getInteger("nimble.transfer.importBatchSize", 1_000), MAX_IMPORT_BATCH);
+    private final int exportTimeoutSeconds = Integer.getInteger("nimble.transfer.exportTimeoutSeconds", 3_600);
+
+    @Resource
+    private UserTransaction transaction;
+
+    @Inject
+    private UserDao userDao;
+
+    @Inject
+    private TaskDao taskDao;
+
+    @Inject
+    private UserIdentityFilter identityFilter;
+
+    @Inject
+    private TransferProgress progress;
+
+    @Inject
+    private Event<TaskChangeEvent> taskChanges; // imported tasks enter summaries and the text index
+
+    /** Passes every user, in ID order, to {@code action}; returns how many there were. */
+    public long exportUsers(Consumer<User> action) {
+        TransferProgress.Run run = progress.start("export_users");
+        return export(run, () -> userDao.forEach(fetchSize, user -> {
+            action.accept(user);
+            run.add(1);
+        }));
+    }
+
+    /** Passes every task, in ID order, to {@code action}; returns how many there were. */
+    public long exportTasks(Consumer<TaskView> action) {
+        TransferProgress.Run run = progress.start("export_tasks");
+        return export(run, () -> taskDao.forEachView(fetchSize, task -> {
+            action.accept(task);
+            run.add(1);
+        }));
+    }
+
+    /** Inserts all users from {@code users}, committing in batches; returns how many. */
+    public long importUsers(Iterator<User> users) {
+        try {
+            return importBatches("import_users", users, batch -> {
+                userDao.insertAll(batch);
+                for (User user : batch) {
+                    identityFilter.add(user.getUsername(), user.getEmail());
+                }
+            });
+        } finally {
+            advanceSequence("USERS_SEQ", userDao::advanceIdSequence);
+        }
+    }
+
+    /**
+     * Inserts all tasks from {@code tasks}, committing in batches; returns how many. Every task's
+     * user must already exist.
+     */
+    public long importTasks(Iterator<TaskView> tasks) {
+        try {
+            return importTasksInBatches(tasks);
+        } finally {
+            advanceSequence("TASK_SEQ", taskDao::advanceIdSequence);
+        }
+    }
+
+    private long importTasksInBatches(Iterator<TaskView> tasks) {
+        return importBatches("import_tasks", tasks, batch -> {
+            Set<Long> missingUserIds = new HashSet<>();
+            for (TaskView task : batch) {
+                missingUserIds.add(task.getUserId());
+            }
+            missingUserIds.removeAll(userDao.findExistingIds(missingUserIds));
+            if (!missingUserIds.isEmpty()) {
+                throw new IllegalArgumentException("User not found with ID(s): " + missingUserIds);
+            }
+            taskDao.insertAll(batch);
+            List<TaskChange> changes = new ArrayList<>(batch.size());
+            for (TaskView task : batch) {
+                changes.add(TaskChange.created(task));
+            }
+            taskChanges.fire(TaskChangeEvent.of(changes));
+        });
+    }
+
+    private long export(TransferProgress.Run run, Runnable scan) {
+        boolean succeeded = false;
+        try {
+            transaction.setTransactionTimeout(exportTimeoutSeconds);
+            transaction.begin();
+            try {
+                scan.run();
+            } finally {
+                rollback(); // read only; nothing to commit
+            }
+            succeeded = true;
+            return run.getRows();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EJBException("Export transaction failed", e);
+        } finally {
+            resetTimeout();
+            run.finish(succeeded);
+        }
+    }
+
+    private <T> long importBatches(String operation, Iterator<T> rows, Consumer<List<T>> insert) {
+        TransferProgress.Run run = progress.start(operation);
+        boolean succeeded = false;
+        try {
+            List<T> batch = new ArrayList<>(importBatchSize);
+            while (rows.hasNext()) {
+                batch.add(rows.next()); // parse errors surface here, outside any transaction
+                if (batch.size() == importBatchSize || !rows.hasNext()) {
+                    commitBatch(batch, insert, run.getRows());
+                    run.add(batch.size());
+                    batch.clear();
+                }
+            }
+            succeeded = true;
+            return run.getRows();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " " + run.getRows() + " rows were imported before this error.", e);
+        } finally {
+            run.finish(succeeded);
+        }
+    }
+
+    private <T> void commitBatch(List<T> batch, Consumer<List<T>> insert, long rowsBefore) {
+        boolean committed = false;
+        try {
+            transaction.begin();
+            insert.accept(batch);
+            transaction.commit();
+            committed = true;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EJBException("Import batch after row " + rowsBefore + " failed to commit", e);
+        } finally {
+            if (!committed) {
+                rollback();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code advance} in its own transaction. A failure is logged rather than thrown, so it
+     * does not hide the outcome of the import; the sequence must then be moved by hand.
+     */
+    private void advanceSequence(String sequence, IntSupplier advance) {
+        boolean committed = false;
+        try {
+            transaction.begin();
+            int steps = advance.getAsInt();
+            transaction.commit();
+            committed = true;
+            LOG.info("Moved " + sequence + " past the imported IDs in " + steps + " steps");
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Moving " + sequence + " past the imported IDs failed; move it by hand before creating rows", e);
+        } finally {
+            if (!committed) {
+                rollback();
+            }
+        }
+    }
+
+    private void rollback() {
+        try {
+            if (transaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                transaction.rollback();
+            }
+        } catch (SystemException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Rolling back a transfer transaction failed", e);
+        }
+    }
+
+    private void resetTimeout() {
+        try {
+            transaction.setTransactionTimeout(0); // back to the container default
+        } catch (SystemException e) {
+            LOG.log(Level.FINE, "Resetting the transaction timeout failed", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nicoceron.nimblev5.service;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Holds an {@link AsyncExecutor} database permit for the whole of a {@link DbBounded} call. A
+ * call that cannot get one within {@code nimble.async.dbPermitTimeoutMillis} fails with
+ * {@link ServerBusyException}, so synchronous SOAP calls queue on the permits instead of on the
+ * JDBC pool, and share the bound with the REST requests.
+ */
+@DbBounded
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 7) // inside the session check: rejected calls never wait for a permit
+public class DbBoundedInterceptor {
+
+    @Inject
+    private AsyncExecutor async;
+
+    @AroundInvoke
+    public Object bound(InvocationContext context) throws Exception {
+        return async.callWithDbPermit(context::proceed);
+    }
+}
@@ -0,0 +1,17 @@
+package com.nicoceron.nimblev5.service;
+
+/**
+ * Classes of SOAP operations that get separate concurrency limits, so that a slow class cannot
+ * take the capacity of the others; see {@link AdmissionControl}.
+ */
+public enum OperationClass {
+
+    /** Queries. Usually cheap, and the bulk of the traffic. */
+    READ,
+
+    /** Inserts, updates and deletes, which hold row locks and flush to the database. */
+    WRITE,
+
+    /** Login and registration, bound by password hashing rather than by the database. */
+    LOGIN
+}
@@ -0,0 +1,207 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.LatencyHistogram;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashing, run on a dedicated pool sized to the CPU count.
+ * <p>
+ * Hashing is deliberately expensive, so it must not run on the request threads that serve every
+ * other operation. The pool has a bounded queue: when it is full, work is rejected immediately
+ * with {@link PasswordHashingBusyException} instead of piling up. So is work that, judging by
+ * the queue ahead of it and the recent hash time, would not finish within
+ * {@code nimble.password.timeoutMillis}. A running hash cannot be stopped, so a job whose
+ * caller gave up (or is about to) while it waited in the queue is dropped rather than started.
+ * <p>
+ * Stored format: {@code pbkdf2_sha256$<iterations>$<base64 salt>$<base64 hash>}. The cost is part
+ * of the stored value, so {@link #needsRehash} can spot hashes made with outdated settings,
+ * including the legacy {@code hashed_} placeholder format.
+ */
+@ApplicationScoped
+public class PasswordHasher implements MetricsSource {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2_sha256";
+    private static final String LEGACY_PREFIX = "hashed_";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations = Integer.getInteger("nimble.password.iterations", 310_000);
+    private final long timeoutMillis = Long.getLong("nimble.password.timeoutMillis", 5_000L);
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long typicalHashNanos; // moving average of recent jobs; 0 until the first one
+
+    public PasswordHasher() {
+        int threads = Integer.getInteger("nimble.password.threads", Runtime.getRuntime().availableProcessors());
+        int queueCapacity = Integer.getInteger("nimble.password.queueCapacity", threads * 16);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "password-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String hash(String plainPassword) {
+        return run(() -> {
+            byte[] salt = new byte[SALT_BYTES];
+            random.nextBytes(salt);
+            byte[] hash = pbkdf2(plainPassword, salt, iterations);
+            Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+            return PREFIX + '$' + iterations + '$' + encoder.encodeToString(salt) + '$' + encoder.encodeToString(hash);
+        });
+    }
+
+    public boolean verify(String plainPassword, String storedHash) {
+        if (plainPassword == null || storedHash == null) {
+            return false;
+        }
+        if (storedHash.startsWith(LEGACY_PREFIX)) {
+            // Placeholder format from before real hashing; cheap, so no need for the pool.
+            String legacy = LEGACY_PREFIX + new StringBuilder(plainPassword).reverse();
+            return MessageDigest.isEqual(legacy.getBytes(StandardCharsets.UTF_8), storedHash.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return false; // corrupt stored hash
+        }
+        return run(() -> MessageDigest.isEqual(expected, pbkdf2(plainPassword, salt, storedIterations)));
+    }
+
+    /**
+     * True when the stored hash was produced with weaker settings than the current ones.
+     */
+    public boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PREFIX + '$')) {
+            return true;
+        }
+        String[] parts = storedHash.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public int getQueueDepth() { return executor.getQueue().size(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public int getPoolSize() { return executor.getMaximumPoolSize(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getExpiredCount() { return expired.sum(); }
+    public LatencyHistogram getLatency() { return latency; }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_password_hash_queue_depth", "gauge", "Hash/verify jobs waiting for a hashing thread.");
+        writer.sample("nimble_password_hash_queue_depth", getQueueDepth());
+        writer.help("nimble_password_hash_active", "gauge", "Hashing threads currently busy.");
+        writer.sample("nimble_password_hash_active", getActiveCount());
+        writer.help("nimble_password_hash_pool_size", "gauge", "Size of the password hashing pool.");
+        writer.sample("nimble_password_hash_pool_size", getPoolSize());
+        writer.help("nimble_password_hash_rejected_total", "counter", "Jobs rejected because the queue was full.");
+        writer.sample("nimble_password_hash_rejected_total", getRejectedCount());
+        writer.help("nimble_password_hash_expired_total", "counter", "Jobs dropped unstarted because their caller could no longer get the result in time.");
+        writer.sample("nimble_password_hash_expired_total", getExpiredCount());
+        writer.help("nimble_password_hash_seconds", "summary", "Time spent computing one hash or verification.");
+        writer.latency("nimble_password_hash_seconds", null, null, latency);
+    }
+
+    private <T> T run(Callable<T> work) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long typical = typicalHashNanos;
+        long expectedWait = (executor.getQueue().size() / executor.getMaximumPoolSize() + 1) * typical;
+        if (expectedWait > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing is saturated, try again later.");
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                if (deadline - start < typicalHashNanos) {
+                    expired.increment(); // would finish after the caller has given up: spare the CPU
+                    throw new PasswordHashingBusyException("Password hashing timed out in the queue.");
+                }
+                try {
+                    return work.call();
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    latency.record(nanos);
+                    long previous = typicalHashNanos;
+                    typicalHashNanos = previous == 0 ? nanos : previous + (nanos - previous) / 8;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing is saturated, try again later.", e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException("Password hashing timed out.", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PasswordHashingBusyException) {
+                throw (PasswordHashingBusyException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed.", e.getCause());
+        }
+    }
+
+    private static byte[] pbkdf2(String plainPassword, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(plainPassword.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
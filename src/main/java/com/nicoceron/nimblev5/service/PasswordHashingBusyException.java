@@ -0,0 +1,16 @@
+package com.nicoceron.nimblev5.service;
+
+/**
+ * Thrown when the password hashing pool is saturated and cannot accept more work.
+ * Callers should report a temporary failure rather than retry immediately.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,137 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import com.nicoceron.nimblev5.util.SingleFlight;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Single-flight front for the reads that dashboards fire in bursts: concurrent calls for the
+ * same user share one service call (see {@link SingleFlight}), and its result is reused for
+ * {@code nimble.coalesce.reuseMillis} (default 50; 0 shares only calls in flight). A committed
+ * write to a user or their tasks drops that user's results, so a client still reads its own
+ * writes. Every caller gets its own list or User; the tasks in a shared list are the same
+ * detached instances, so callers must not modify them.
+ * <p>
+ * Per operation, {@code /metrics} counts calls, executions and collapsed calls. A run shared by
+ * at least {@code nimble.coalesce.logThreshold} callers (default 20) is logged with its key.
+ */
+@ApplicationScoped
+public class ReadCoalescer implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(ReadCoalescer.class.getName());
+
+    private final long reuseNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("nimble.coalesce.reuseMillis", 50L));
+    private final int logThreshold = Integer.getInteger("nimble.coalesce.logThreshold", 20);
+
+    private final SingleFlight<Long, List<Task>> tasksByUser = flight("tasks_by_user");
+    private final SingleFlight<Long, List<TaskView>> taskViewsByUser = flight("task_views_by_user");
+    private final SingleFlight<Long, Optional<User>> usersById = flight("user_by_id");
+
+    // Operation name -> its flights, for the metrics
+    private final Map<String, SingleFlight<Long, ?>> operations = new LinkedHashMap<>();
+
+    @Inject
+    private TaskService taskService;
+
+    @Inject
+    private UserService userService;
+
+    public ReadCoalescer() {
+        operations.put("tasks_by_user", tasksByUser);
+        operations.put("task_views_by_user", taskViewsByUser);
+        operations.put("user_by_id", usersById);
+    }
+
+    /** {@link TaskService#findTasksByUserId}, coalesced. */
+    public List<Task> findTasksByUserId(Long userId) {
+        return new ArrayList<>(execute(tasksByUser, userId, () -> taskService.findTasksByUserId(userId)));
+    }
+
+    /** {@link TaskService#findTaskViewsByUserId}, coalesced. */
+    public List<TaskView> findTaskViewsByUserId(Long userId) {
+        return new ArrayList<>(execute(taskViewsByUser, userId, () -> taskService.findTaskViewsByUserId(userId)));
+    }
+
+    /** {@link UserService#findUserById}, coalesced; the user is a copy the caller may modify. */
+    public Optional<User> findUserById(Long userId) {
+        return execute(usersById, userId, () -> userService.findUserById(userId)).map(ReadCoalescer::copy);
+    }
+
+    void onTaskWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) TaskChangeEvent event) {
+        for (Long userId : event.getUserIds()) {
+            tasksByUser.forget(userId);
+            taskViewsByUser.forget(userId);
+        }
+    }
+
+    void onUserWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangeEvent event) {
+        usersById.forget(event.getUserId());
+    }
+
+    private <V> SingleFlight<Long, V> flight(String operation) {
+        return new SingleFlight<>(reuseNanos, (userId, callers) -> {
+            if (callers >= logThreshold) {
+                LOG.info(operation + " for user " + userId + ": " + callers + " calls served by one query");
+            }
+        });
+    }
+
+    private static <V> V execute(SingleFlight<Long, V> flight, Long userId, Callable<V> read) {
+        try {
+            return userId == null ? read.call() : flight.execute(userId, read);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared read", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e); // the service reads throw no checked exceptions
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setUserId(user.getUserId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPasswordHash(user.getPasswordHash());
+        copy.setCreatedDate(user.getCreatedDate());
+        return copy;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_coalesce_calls_total", "counter", "Coalesced reads requested, by operation.");
+        for (Map.Entry<String, SingleFlight<Long, ?>> e : operations.entrySet()) {
+            writer.sample("nimble_coalesce_calls_total", "operation", e.getKey(), e.getValue().getCallCount());
+        }
+        writer.help("nimble_coalesce_executions_total", "counter", "Coalesced reads that ran a query, by operation.");
+        for (Map.Entry<String, SingleFlight<Long, ?>> e : operations.entrySet()) {
+            writer.sample("nimble_coalesce_executions_total", "operation", e.getKey(), e.getValue().getExecutionCount());
+        }
+        writer.help("nimble_coalesce_shared_total", "counter", "Calls that joined a query already in flight, by operation.");
+        for (Map.Entry<String, SingleFlight<Long, ?>> e : operations.entrySet()) {
+            writer.sample("nimble_coalesce_shared_total", "operation", e.getKey(), e.getValue().getSharedCount());
+        }
+        writer.help("nimble_coalesce_reused_total", "counter", "Calls answered from a result inside the reuse window, by operation.");
+        for (Map.Entry<String, SingleFlight<Long, ?>> e : operations.entrySet()) {
+            writer.sample("nimble_coalesce_reused_total", "operation", e.getKey(), e.getValue().getReusedCount());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.ReplicaRouting;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+/**
+ * Opens the read-your-writes window of every user whose data is written, so that their reads
+ * skip the replica (see {@link ReplicaRouting}). The window starts at the write, which covers
+ * reads later in the same transaction, and starts again at the commit.
+ */
+@ApplicationScoped
+public class ReadYourWritesTracker {
+
+    @Inject
+    private ReplicaRouting routing;
+
+    void onTaskWrite(@Observes(during = TransactionPhase.IN_PROGRESS) TaskChangeEvent event) {
+        markAll(event);
+    }
+
+    void onTaskWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) TaskChangeEvent event) {
+        markAll(event);
+    }
+
+    void onUserWrite(@Observes(during = TransactionPhase.IN_PROGRESS) UserChangeEvent event) {
+        routing.markWritten(event.getUserId());
+    }
+
+    void onUserWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangeEvent event) {
+        routing.markWritten(event.getUserId());
+    }
+
+    private void markAll(TaskChangeEvent event) {
+        for (Long userId : event.getUserIds()) {
+            routing.markWritten(userId);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.ReplicaRouting;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+
+/**
+ * Replica lag heartbeat for {@link ReplicaRouting}, every two seconds while replica reads are
+ * enabled: first reads back the stamp written by the previous beat, then writes a new one.
+ */
+@Singleton
+public class ReplicaMonitor {
+
+    @Inject
+    private ReplicaRouting routing;
+
+    @Schedule(hour = "*", minute = "*", second = "*/2", persistent = false)
+    public void beat() {
+        if (!routing.isEnabled()) {
+            return;
+        }
+        routing.measureLag();
+        routing.writeHeartbeat();
+    }
+}
@@ -0,0 +1,16 @@
+package com.nicoceron.nimblev5.service;
+
+/**
+ * Thrown when a request cannot be admitted because the server is at its concurrency limit, or
+ * waited too long for a database slot. Callers should report a temporary failure and back off.
+ */
+public class ServerBusyException extends RuntimeException {
+
+    public ServerBusyException(String message) {
+        super(message);
+    }
+
+    public ServerBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
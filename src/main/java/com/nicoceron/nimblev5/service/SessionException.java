@@ -0,0 +1,20 @@
+package com.nicoceron.nimblev5.service;
+
+/**
+ * Thrown when a call's session token is missing (and required), not valid, or belongs to a
+ * different user than the data the call is about. Reported as a SOAP fault, or as {@code 401} /
+ * {@code 403} by the REST API.
+ */
+public class SessionException extends RuntimeException {
+
+    public enum Reason { MISSING, INVALID, EXPIRED, REVOKED, FORBIDDEN }
+
+    private final Reason reason;
+
+    public SessionException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() { return reason; }
+}
@@ -0,0 +1,129 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dto.NewTask;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ContextNotActiveException;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.jws.WebParam;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.PathParam;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Authenticates {@link Authenticated} calls by their {@code Authorization: Bearer <token>}
+ * HTTP header, which SOAP clients send like REST clients do. The token is checked in memory by
+ * {@link SessionTokens}. If the call names a user, through a {@code userId} parameter (SOAP or
+ * path) or a {@link TaskSearch} or {@link NewTask}, that must be the token's user. The call
+ * then runs as that user ({@link SessionTokens#callAs}), and {@code TaskService} checks that
+ * tasks addressed only by ID belong to them.
+ * <p>
+ * Calls without a token are let through unless {@code nimble.session.required} is set, so
+ * existing clients keep working until they are moved to tokens; operations that must never run
+ * anonymously (deleting a user) are marked {@code @Authenticated(required = true)}.
+ */
+@Authenticated
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 5) // inside TimedInterceptor, so rejected calls count as errors
+public class SessionInterceptor {
+
+    private static final String BEARER = "Bearer ";
+
+    // Indexes of each method's userId parameters; static since interceptor instances follow their bean's scope
+    private static final ConcurrentMap<Method, int[]> USER_ID_PARAMETERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Method, Boolean> TOKEN_REQUIRED = new ConcurrentHashMap<>();
+
+    @Inject
+    private SessionTokens sessions;
+
+    @Inject
+    private HttpServletRequest request;
+
+    @AroundInvoke
+    public Object authenticate(InvocationContext context) throws Exception {
+        String token = bearerToken();
+        if (token == null) {
+            if (sessions.isRequired() || TOKEN_REQUIRED.computeIfAbsent(context.getMethod(), SessionInterceptor::isTokenRequired)) {
+                throw new SessionException(SessionException.Reason.MISSING, "A session token is required; log in first.");
+            }
+            return context.proceed();
+        }
+        Long sessionUserId = sessions.verify(token);
+        for (Long userId : namedUserIds(context)) {
+            if (userId != null && !userId.equals(sessionUserId)) {
+                throw new SessionException(SessionException.Reason.FORBIDDEN, "The session does not belong to user " + userId + ".");
+            }
+        }
+        return SessionTokens.callAs(sessionUserId, context::proceed);
+    }
+
+    private String bearerToken() {
+        String header;
+        try {
+            header = request.getHeader("Authorization");
+        } catch (ContextNotActiveException e) {
+            return null; // not called for an HTTP request
+        }
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        return header.substring(BEARER.length()).trim();
+    }
+
+    private static List<Long> namedUserIds(InvocationContext context) {
+        Object[] parameters = context.getParameters();
+        List<Long> userIds = new ArrayList<>();
+        for (int index : USER_ID_PARAMETERS.computeIfAbsent(context.getMethod(), SessionInterceptor::findUserIdParameters)) {
+            userIds.add((Long) parameters[index]);
+        }
+        for (Object parameter : parameters) {
+            if (parameter instanceof TaskSearch) {
+                userIds.add(((TaskSearch) parameter).getUserId());
+            } else if (parameter instanceof Collection) {
+                for (Object element : (Collection<?>) parameter) {
+                    if (element instanceof NewTask) {
+                        userIds.add(((NewTask) element).getUserId());
+                    }
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private static boolean isTokenRequired(Method method) {
+        Authenticated authenticated = method.getAnnotation(Authenticated.class);
+        if (authenticated == null) {
+            authenticated = method.getDeclaringClass().getAnnotation(Authenticated.class);
+        }
+        return authenticated != null && authenticated.required();
+    }
+
+    private static int[] findUserIdParameters(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                boolean named = annotation instanceof WebParam && "userId".equals(((WebParam) annotation).name())
+                        || annotation instanceof PathParam && "userId".equals(((PathParam) annotation).value());
+                if (named && method.getParameterTypes()[i] == Long.class) {
+                    indexes.add(i);
+                }
+            }
+        }
+        int[] result = new int[indexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes.get(i);
+        }
+        return result;
+    }
+}
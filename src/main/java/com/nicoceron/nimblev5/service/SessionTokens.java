@@ -0,0 +1,272 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Signed, expiring session tokens, issued at login and checked without touching the database.
+ * <p>
+ * A token is {@code base64url(payload) "." base64url(HMAC-SHA256(payload))}, where the payload
+ * holds the user ID, issue and expiry times and a random token ID. The key is
+ * {@code nimble.session.secret} (Base64, at least 32 bytes), shared by all nodes; without it a
+ * random key is generated, and tokens stop working on restart and on other nodes. Tokens live
+ * for {@code nimble.session.ttlSeconds} (default 3600).
+ * <p>
+ * Revocation is a small in-memory list: single tokens (logout) and "everything issued to this
+ * user so far" (e.g. when the user is deleted). Entries are dropped once the tokens they cover
+ * have expired anyway. Past {@code nimble.session.maxRevoked} entries, logging out revokes all
+ * of the user's tokens instead. Like the caches, the list is per node.
+ * <p>
+ * While an authenticated call runs, its user is bound to the thread ({@link #callAs}), so
+ * services can check that a task addressed by ID belongs to that user.
+ */
+@ApplicationScoped
+public class SessionTokens implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(SessionTokens.class.getName());
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_BYTES = 4 * Long.BYTES; // userId, issuedAt, expiresAt, tokenId
+    private static final int MIN_SECRET_BYTES = 32;
+
+    // The user whose verified token the current thread's call carries, if any
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+
+    private final long ttlMillis = TimeUnit.SECONDS.toMillis(Long.getLong("nimble.session.ttlSeconds", 3_600L));
+    private final int maxRevoked = Integer.getInteger("nimble.session.maxRevoked", 100_000);
+    private final boolean required = Boolean.getBoolean("nimble.session.required");
+
+    private SecretKeySpec key;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac); // Mac is not thread-safe
+    private final SecureRandom random = new SecureRandom();
+
+    // tokenId -> expiresAt of the revoked token
+    private final ConcurrentMap<Long, Long> revokedTokens = new ConcurrentHashMap<>();
+    // userId -> time before which every token of that user is revoked
+    private final ConcurrentMap<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedInvalid = new LongAdder();
+    private final LongAdder rejectedExpired = new LongAdder();
+    private final LongAdder rejectedRevoked = new LongAdder();
+
+    /** A freshly issued token. */
+    public static final class Session {
+
+        private final String token;
+        private final Date expiresAt;
+
+        Session(String token, Date expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() { return token; }
+        public Date getExpiresAt() { return expiresAt; }
+    }
+
+    @PostConstruct
+    void init() {
+        key = new SecretKeySpec(loadSecret(), ALGORITHM);
+    }
+
+    /**
+     * The user of the session the current call was authenticated with; null for calls without a
+     * token and for background work.
+     */
+    public static Long currentUserId() {
+        return CURRENT_USER.get();
+    }
+
+    /** Runs {@code work} as {@code userId} (see {@link #currentUserId}); nested calls restore the outer user. */
+    public static <T> T callAs(Long userId, Callable<T> work) throws Exception {
+        Long outer = CURRENT_USER.get();
+        CURRENT_USER.set(userId);
+        try {
+            return work.call();
+        } finally {
+            if (outer != null) {
+                CURRENT_USER.set(outer);
+            } else {
+                CURRENT_USER.remove();
+            }
+        }
+    }
+
+    /** Whether calls without a token are rejected ({@code nimble.session.required}). */
+    public boolean isRequired() { return required; }
+
+    public Session issue(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        long now = System.currentTimeMillis();
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(userId).putLong(now).putLong(now + ttlMillis).putLong(random.nextLong())
+                .array();
+        issued.increment();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return new Session(encoder.encodeToString(payload) + '.' + encoder.encodeToString(sign(payload)), new Date(now + ttlMillis));
+    }
+
+    /** The user the token was issued to; throws {@link SessionException} unless it is valid, unexpired and not revoked. */
+    public Long verify(String token) {
+        Claims claims = parse(token);
+        long now = System.currentTimeMillis();
+        if (now >= claims.expiresAt) {
+            rejectedExpired.increment();
+            throw new SessionException(SessionException.Reason.EXPIRED, "The session has expired; log in again.");
+        }
+        Long revokedBefore = revokedUsers.get(claims.userId);
+        if (revokedTokens.containsKey(claims.tokenId) || revokedBefore != null && claims.issuedAt <= revokedBefore) {
+            rejectedRevoked.increment();
+            throw new SessionException(SessionException.Reason.REVOKED, "The session has ended; log in again.");
+        }
+        accepted.increment();
+        return claims.userId;
+    }
+
+    /** Ends one session (logout). Returns false if the token was not valid to begin with. */
+    public boolean revoke(String token) {
+        Claims claims;
+        try {
+            claims = parse(token);
+        } catch (SessionException e) {
+            return false;
+        }
+        trim();
+        if (revokedTokens.size() >= maxRevoked) {
+            revokeUser(claims.userId); // list full: end all of the user's sessions instead
+        } else {
+            revokedTokens.put(claims.tokenId, claims.expiresAt);
+        }
+        return true;
+    }
+
+    /** Ends every session issued to the user until now. */
+    public void revokeUser(Long userId) {
+        if (userId != null) {
+            revokedUsers.put(userId, System.currentTimeMillis());
+        }
+    }
+
+    /** A deleted user's sessions end when the deletion commits, not before: it may roll back. */
+    void onUserWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangeEvent event) {
+        if (event.isDeleted()) {
+            revokeUser(event.getUserId());
+        }
+    }
+
+    private Claims parse(String token) {
+        int dot = token != null ? token.indexOf('.') : -1;
+        if (dot > 0) {
+            try {
+                Base64.Decoder decoder = Base64.getUrlDecoder();
+                byte[] payload = decoder.decode(token.substring(0, dot));
+                byte[] signature = decoder.decode(token.substring(dot + 1));
+                if (payload.length == PAYLOAD_BYTES && MessageDigest.isEqual(signature, sign(payload))) {
+                    ByteBuffer buffer = ByteBuffer.wrap(payload);
+                    return new Claims(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+                }
+            } catch (IllegalArgumentException e) {
+                // not Base64; rejected below
+            }
+        }
+        rejectedInvalid.increment();
+        throw new SessionException(SessionException.Reason.INVALID, "The session token is not valid.");
+    }
+
+    private static final class Claims {
+
+        final long userId;
+        final long issuedAt;
+        final long expiresAt;
+        final long tokenId;
+
+        Claims(long userId, long issuedAt, long expiresAt, long tokenId) {
+            this.userId = userId;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+    }
+
+    // Drops revocations that only cover expired tokens
+    private void trim() {
+        long now = System.currentTimeMillis();
+        if (revokedTokens.size() >= maxRevoked / 2) {
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        }
+        for (Iterator<Map.Entry<Long, Long>> it = revokedUsers.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue() + ttlMillis <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        Mac mac = macs.get();
+        return mac.doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static byte[] loadSecret() {
+        String configured = System.getProperty("nimble.session.secret");
+        if (configured == null || configured.isEmpty()) {
+            LOG.warning("nimble.session.secret is not set; session tokens are only valid on this node until it restarts");
+            byte[] secret = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(secret);
+            return secret;
+        }
+        byte[] secret = Base64.getDecoder().decode(configured.getBytes(StandardCharsets.US_ASCII));
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("nimble.session.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return secret;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_session_issued_total", "counter", "Session tokens issued at login.");
+        writer.sample("nimble_session_issued_total", issued.sum());
+        writer.help("nimble_session_checks_total", "counter", "Session token checks, by result.");
+        writer.sample("nimble_session_checks_total", "result", "accepted", accepted.sum());
+        writer.sample("nimble_session_checks_total", "result", "invalid", rejectedInvalid.sum());
+        writer.sample("nimble_session_checks_total", "result", "expired", rejectedExpired.sum());
+        writer.sample("nimble_session_checks_total", "result", "revoked", rejectedRevoked.sum());
+        writer.help("nimble_session_revocations", "gauge", "Entries in the revocation list (tokens and users).");
+        writer.sample("nimble_session_revocations", revokedTokens.size() + revokedUsers.size());
+    }
+}
@@ -0,0 +1,57 @@
+package com.nicoceron.nimblev5.service;
+
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hourly move of COMPLETED tasks untouched for {@code nimble.archive.retentionDays} from TASK
+ * into TASK_ARCHIVE, so listings and their indexes only cover live tasks. Each batch of
+ * {@code nimble.archive.batchSize} tasks is its own transaction (see
+ * {@link TaskService#archiveCompletedTasks}); a run stops after
+ * {@code nimble.archive.maxBatchesPerRun} batches and the next one picks up the rest.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TaskArchiver {
+
+    private static final Logger LOG = Logger.getLogger(TaskArchiver.class.getName());
+
+    private final boolean enabled = !"false".equals(System.getProperty("nimble.archive.enabled"));
+    private final long retentionMillis = TimeUnit.DAYS.toMillis(Long.getLong("nimble.archive.retentionDays", 90L));
+    private final int batchSize = Integer.getInteger("nimble.archive.batchSize", 1_000);
+    private final int maxBatchesPerRun = Integer.getInteger("nimble.archive.maxBatchesPerRun", 100);
+
+    @Inject
+    private TaskService taskService;
+
+    @Schedule(hour = "*", minute = "37", persistent = false)
+    public void archiveCompletedTasks() {
+        if (!enabled) {
+            return;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - retentionMillis);
+        long total = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int archived = taskService.archiveCompletedTasks(cutoff, batchSize);
+                if (archived == 0) {
+                    break;
+                }
+                total += archived;
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Archiving completed tasks failed after " + total + " tasks", e);
+        }
+        if (total > 0) {
+            LOG.info("Archived " + total + " completed tasks last modified before " + cutoff);
+        }
+    }
+}
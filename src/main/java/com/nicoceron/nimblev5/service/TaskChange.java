@@ -0,0 +1,26 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dto.TaskView;
+
+/**
+ * One task row before and after a write: {@code before} is null for a create, {@code after}
+ * is null for a delete. Both are detached snapshots.
+ */
+public final class TaskChange {
+
+    private final TaskView before;
+    private final TaskView after;
+
+    private TaskChange(TaskView before, TaskView after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static TaskChange created(TaskView after) { return new TaskChange(null, after); }
+    public static TaskChange updated(TaskView before, TaskView after) { return new TaskChange(before, after); }
+    public static TaskChange deleted(TaskView before) { return new TaskChange(before, null); }
+
+    public TaskView getBefore() { return before; }
+    public TaskView getAfter() { return after; }
+    public Long getUserId() { return after != null ? after.getUserId() : before.getUserId(); }
+}
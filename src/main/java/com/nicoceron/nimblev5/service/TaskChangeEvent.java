@@ -0,0 +1,51 @@
+package com.nicoceron.nimblev5.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fired by {@link TaskService} inside the writing transaction. Observers that maintain derived
+ * state should act in {@code TransactionPhase.AFTER_SUCCESS}, so they never see a write that is
+ * later rolled back.
+ * <p>
+ * Row-by-row writes carry itemised {@link TaskChange}s. Set-based statements only name the
+ * users whose tasks they touched; derived state for those users has to be reloaded.
+ */
+public final class TaskChangeEvent {
+
+    private final List<TaskChange> changes;
+    private final Set<Long> bulkChangedUserIds;
+
+    private TaskChangeEvent(List<TaskChange> changes, Set<Long> bulkChangedUserIds) {
+        this.changes = changes;
+        this.bulkChangedUserIds = bulkChangedUserIds;
+    }
+
+    public static TaskChangeEvent of(TaskChange change) {
+        return new TaskChangeEvent(Collections.singletonList(change), Collections.<Long>emptySet());
+    }
+
+    public static TaskChangeEvent of(List<TaskChange> changes) {
+        return new TaskChangeEvent(Collections.unmodifiableList(new ArrayList<>(changes)), Collections.<Long>emptySet());
+    }
+
+    public static TaskChangeEvent bulk(Collection<Long> userIds) {
+        return new TaskChangeEvent(Collections.<TaskChange>emptyList(), Collections.unmodifiableSet(new LinkedHashSet<>(userIds)));
+    }
+
+    public List<TaskChange> getChanges() { return changes; }
+    public Set<Long> getBulkChangedUserIds() { return bulkChangedUserIds; }
+
+    /** Every user whose tasks this event touches, itemised or not. */
+    public Set<Long> getUserIds() {
+        Set<Long> userIds = new LinkedHashSet<>(bulkChangedUserIds);
+        for (TaskChange change : changes) {
+            userIds.add(change.getUserId());
+        }
+        return userIds;
+    }
+}
@@ -1,27 +1,92 @@
 package com.nicoceron.nimblev5.service;
 
+import com.nicoceron.nimblev5.dao.ReadOnly;
+import com.nicoceron.nimblev5.dao.TaskArchiveDao;
 import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.dao.TaskKeysetCursor;
+import com.nicoceron.nimblev5.dao.TaskTombstoneDao;
 import com.nicoceron.nimblev5.dao.UserDao;
 import com.nicoceron.nimblev5.domain.Task;
 import com.nicoceron.nimblev5.domain.TaskPriority;
 import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.domain.TaskTombstone;
 import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.NewTask;
+import com.nicoceron.nimblev5.dto.TaskChanges;
+import com.nicoceron.nimblev5.dto.TaskPage;
+import com.nicoceron.nimblev5.dto.TaskPatchOutcome;
+import com.nicoceron.nimblev5.dto.TaskPatchResult;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import com.nicoceron.nimblev5.dto.TaskSearchHit;
+import com.nicoceron.nimblev5.dto.TaskSortOrder;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.dto.VersionedTaskList;
+import com.nicoceron.nimblev5.util.TextTokenizer;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Stateless
 public class TaskService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BULK_CREATE = 5000;
+    static final int MAX_SEARCH_OFFSET = 10_000; // deeper pages cost more than they are worth; narrow the search
+    static final int DEFAULT_FULL_TEXT_RESULTS = 20;
+    static final int MAX_FULL_TEXT_RESULTS = 200;
+    static final int BULK_FLUSH_INTERVAL = 100; // keep in sync with eclipselink.jdbc.batch-writing.size
+
+    // Delta sync: clients whose watermark predates the retention period must resync fully
+    static final int DELTA_SYNC_MAX_CHANGES = Integer.getInteger("nimble.deltaSync.maxChanges", 1000);
+    static final long DELTA_SYNC_OVERLAP_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("nimble.deltaSync.overlapSeconds", 30L));
+    static final long TOMBSTONE_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(Long.getLong("nimble.deltaSync.tombstoneRetentionDays", 30L));
+
     @Inject
     private TaskDao taskDao;
 
     @Inject
     private UserDao userDao; // To associate tasks with users
 
+    @Inject
+    private TaskTombstoneDao tombstoneDao;
+
+    @Inject
+    private TaskArchiveDao archiveDao;
+
+    @Inject
+    private TaskSummaryCache summaryCache;
+
+    @Inject
+    private TaskTextIndex textIndex;
+
+    @Inject
+    private UserVersions userVersions; // stamps for conditional reads
+
+    @Inject
+    private TaskWriteBehindQueue writeBehind; // acknowledged, not yet written status/priority changes
+
+    @Inject
+    private Event<TaskChangeEvent> taskChanges; // observers maintaining derived state, see TaskChangeEvent
+
     public Task createTask(Long userId, String title, String description, Timestamp dueDate, TaskPriority priority) {
         User user = userDao.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
@@ -35,22 +100,267 @@ public class TaskService {
         newTask.setStatus(TaskStatus.PENDING); // Default status
 
         taskDao.persist(newTask);
+        taskChanges.fire(TaskChangeEvent.of(TaskChange.created(TaskView.of(newTask))));
         return newTask;
     }
 
+    /**
+     * Creates many tasks in one transaction. IDs come from the pooled sequence allocator and rows
+     * are flushed as JDBC batches, so the cost is roughly one round trip per batch instead of two
+     * per task. Returns the new task IDs in input order; any invalid entry rolls back the whole call.
+     */
+    public List<Long> createTasks(List<NewTask> newTasks) {
+        if (newTasks == null || newTasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (newTasks.size() > MAX_BULK_CREATE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_CREATE + " tasks can be created per call.");
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        for (NewTask newTask : newTasks) {
+            if (newTask == null || newTask.getUserId() == null || newTask.getTitle() == null || newTask.getTitle().isEmpty()) {
+                throw new IllegalArgumentException("User ID and Title are required for every task.");
+            }
+            userIds.add(newTask.getUserId());
+        }
+        Set<Long> existingUserIds = userDao.findExistingIds(userIds);
+        userIds.removeAll(existingUserIds);
+        if (!userIds.isEmpty()) {
+            throw new IllegalArgumentException("User not found with ID(s): " + userIds);
+        }
+
+        List<Long> createdIds = new ArrayList<>(newTasks.size());
+        List<TaskChange> changes = new ArrayList<>(newTasks.size());
+        for (NewTask newTask : newTasks) {
+            Task task = new Task();
+            task.setUser(userDao.getReference(newTask.getUserId()));
+            task.setTitle(newTask.getTitle());
+            task.setDescription(newTask.getDescription());
+            task.setDueDate(newTask.getDueDate() != null ? new Timestamp(newTask.getDueDate().getTime()) : null);
+            task.setPriority(newTask.getPriority());
+            task.setStatus(TaskStatus.PENDING); // Default status
+
+            taskDao.persist(task); // ID is assigned here from the preallocated block
+            createdIds.add(task.getTaskId());
+            changes.add(TaskChange.created(TaskView.of(task)));
+            if (createdIds.size() % BULK_FLUSH_INTERVAL == 0) {
+                taskDao.flushAndClear();
+            }
+        }
+        taskChanges.fire(TaskChangeEvent.of(changes));
+        return createdIds;
+    }
+
+    /** Reflects queued write-behind changes, see {@link #queueTaskUpdate}. */
+    @ReadOnly
     public Optional<Task> findTaskById(Long taskId) {
-        return taskDao.findById(taskId);
+        Optional<Task> task = taskDao.findById(taskId);
+        task.ifPresent(found -> checkOwner(taskId, found.getUserId()));
+        if (task.isPresent() && writeBehind.isPending(taskId)) {
+            taskDao.detach(task.get()); // the overlaid values must not be written by this transaction
+            writeBehind.overlay(task.get());
+        }
+        return task;
     }
 
+    @ReadOnly
     public List<Task> findTasksByUserId(Long userId) {
         // Ensure user exists (optional, depends on requirements)
         // userDao.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
         return taskDao.findByUserId(userId);
     }
 
+    // --- Read-only views: projected straight from the query, never managed ---
+
+    /** Reflects queued write-behind changes, see {@link #queueTaskUpdate}. */
+    @ReadOnly
+    public Optional<TaskView> findTaskViewById(Long taskId) {
+        Optional<TaskView> view = taskDao.findViewById(taskId);
+        view.ifPresent(found -> checkOwner(taskId, found.getUserId()));
+        return view.map(writeBehind::overlay);
+    }
+
+    @ReadOnly
+    public List<TaskView> findTaskViewsByUserId(Long userId) {
+        return taskDao.findViewsByUserId(userId);
+    }
+
+    /**
+     * Conditional variant of {@link #findTaskViewsByUserId}: if {@code ifNoneMatch} is still the
+     * user's version stamp, answers "not modified" without querying the database.
+     */
+    @ReadOnly
+    public VersionedTaskList findTaskViewsByUserIdIfModified(Long userId, String ifNoneMatch) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        String versionTag = userVersions.current(userId); // before the read, see UserVersions
+        if (userVersions.matches(versionTag, ifNoneMatch)) {
+            return new VersionedTaskList(true, versionTag, new ArrayList<>());
+        }
+        return new VersionedTaskList(false, versionTag, taskDao.findViewsByUserId(userId));
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #findTasksByUserId}. Only {@code pageSize + 1} rows are
+     * read per call; the extra row just tells us whether another page exists.
+     */
+    @ReadOnly
+    public TaskPage findTaskPageByUserId(Long userId, String pageToken, Integer pageSize) {
+        int limit = pageLimit(pageSize);
+        TaskKeysetCursor cursor = pageToken == null || pageToken.isEmpty() ? null : TaskKeysetCursor.decode(pageToken);
+
+        List<TaskView> rows = taskDao.findViewPageByUserId(userId, cursor, limit + 1);
+        if (rows.size() <= limit) {
+            return new TaskPage(rows, null);
+        }
+        List<TaskView> page = rows.subList(0, limit);
+        return new TaskPage(new ArrayList<>(page), TaskKeysetCursor.after(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Tasks matching any combination of the {@link TaskSearch} criteria, one page at a time.
+     * Pages are addressed by offset, capped at {@value #MAX_SEARCH_OFFSET} rows.
+     */
+    public TaskPage searchTasks(TaskSearch search) {
+        if (search == null || search.getUserId() == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        if (search.getDueFrom() != null && search.getDueTo() != null && search.getDueFrom().after(search.getDueTo())) {
+            throw new IllegalArgumentException("Due date range is empty: dueFrom is after dueTo.");
+        }
+        int limit = pageLimit(search.getPageSize());
+        int offset = decodeSearchOffset(search.getPageToken());
+        TaskSortOrder order = search.getSortOrder() != null ? search.getSortOrder() : TaskSortOrder.DUE_DATE;
+
+        List<TaskView> rows = taskDao.search(search, order, offset, limit + 1);
+        if (rows.size() <= limit) {
+            return new TaskPage(rows, null);
+        }
+        rows = new ArrayList<>(rows.subList(0, limit));
+        return new TaskPage(rows, offset + limit > MAX_SEARCH_OFFSET ? null : encodeSearchOffset(offset + limit));
+    }
+
+    /**
+     * Ranked search over title and description words; a task must contain every word of the
+     * query. Candidates come from {@link TaskTextIndex} and are re-read from the database, so a
+     * result is never a deleted task or one whose text no longer matches.
+     */
+    public List<TaskSearchHit> fullTextSearch(Long userId, String query, Integer maxResults) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        int limit = maxResults == null || maxResults <= 0 ? DEFAULT_FULL_TEXT_RESULTS : Math.min(maxResults, MAX_FULL_TEXT_RESULTS);
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // A few extra candidates make up for hits dropped below.
+        List<TaskTextIndex.Hit> hits = textIndex.search(userId, new ArrayList<>(terms), limit + limit / 4 + 5);
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (TaskTextIndex.Hit hit : hits) {
+            ids.add(hit.getTaskId());
+        }
+        Map<Long, TaskView> current = new HashMap<>();
+        for (TaskView view : taskDao.findViewsByUserIdAndIds(userId, ids)) {
+            current.put(view.getTaskId(), view);
+        }
+
+        List<TaskSearchHit> results = new ArrayList<>(limit);
+        for (TaskTextIndex.Hit hit : hits) {
+            TaskView view = current.get(hit.getTaskId());
+            if (view == null) {
+                textIndex.remove(userId, hit.getTaskId()); // deleted, but the index had not heard yet
+            } else if (containsAll(view, terms) && results.size() < limit) {
+                results.add(new TaskSearchHit(view, hit.getScore()));
+            }
+        }
+        return results;
+    }
+
+    private static boolean containsAll(TaskView task, Set<String> terms) {
+        Set<String> words = new HashSet<>(TextTokenizer.tokenize(task.getTitle()));
+        words.addAll(TextTokenizer.tokenize(task.getDescription()));
+        return words.containsAll(terms);
+    }
+
+    /**
+     * Tasks modified and deleted since {@code watermark} (see {@link TaskChanges}). The window
+     * starts {@code nimble.deltaSync.overlapSeconds} before the watermark, because a row's
+     * modification time is taken when it is written, not when its transaction commits. The new
+     * watermark is the latest database timestamp seen, so the application server clock is only
+     * consulted when the user has no tasks at all.
+     */
+    public TaskChanges getTasksChangedSince(Long userId, Date watermark) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        if (watermark == null) {
+            return resyncRequired(userId);
+        }
+        Date since = new Date(watermark.getTime() - DELTA_SYNC_OVERLAP_MILLIS);
+        if (since.getTime() < System.currentTimeMillis() - TOMBSTONE_RETENTION_MILLIS) {
+            return resyncRequired(userId); // tombstones older than the retention period are gone
+        }
+        List<TaskView> changed = taskDao.findViewsModifiedSince(userId, since, DELTA_SYNC_MAX_CHANGES + 1);
+        List<TaskTombstone> deleted = changed.size() > DELTA_SYNC_MAX_CHANGES ? Collections.<TaskTombstone>emptyList()
+                : tombstoneDao.findByUserIdDeletedSince(userId, since, DELTA_SYNC_MAX_CHANGES + 1 - changed.size());
+        if (changed.size() + deleted.size() > DELTA_SYNC_MAX_CHANGES) {
+            return resyncRequired(userId); // cheaper to reload than to ship this many rows one by one
+        }
+
+        TaskChanges changes = new TaskChanges();
+        long latest = watermark.getTime();
+        for (TaskView task : changed) {
+            changes.getChanged().add(task);
+            latest = Math.max(latest, task.getLastModifiedDate().getTime());
+        }
+        for (TaskTombstone tombstone : deleted) {
+            changes.getDeletedTaskIds().add(tombstone.getTaskId());
+            latest = Math.max(latest, tombstone.getDeletedDate().getTime());
+        }
+        changes.setWatermark(new Date(latest));
+        return changes;
+    }
+
+    private TaskChanges resyncRequired(Long userId) {
+        Date latestModified = taskDao.findLatestModifiedDateByUserId(userId);
+        Date latestDeleted = tombstoneDao.findLatestDeletedDateByUserId(userId);
+        long latest;
+        if (latestModified == null && latestDeleted == null) {
+            latest = System.currentTimeMillis();
+        } else {
+            latest = Math.max(latestModified != null ? latestModified.getTime() : Long.MIN_VALUE,
+                    latestDeleted != null ? latestDeleted.getTime() : Long.MIN_VALUE);
+        }
+        TaskChanges changes = new TaskChanges();
+        changes.setResyncRequired(true);
+        changes.setWatermark(new Date(latest));
+        return changes;
+    }
+
+    /**
+     * Counts by status and priority plus the overdue count, served from {@link TaskSummaryCache}.
+     * Only the first call for a user (or one after eviction) touches the database.
+     */
+    public TaskSummary getTaskSummary(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        return summaryCache.get(userId, () -> taskDao.countByUserIdGroupedByStatusPriorityAndDueDate(userId));
+    }
+
     public Task updateTask(Long taskId, String title, String description, Timestamp dueDate, TaskPriority priority, TaskStatus status) {
         Task existingTask = taskDao.findById(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found with ID: " + taskId));
+        checkOwner(taskId, existingTask.getUserId());
+        writeBehind.discard(taskId, true, true);
+        TaskView before = TaskView.of(existingTask);
 
         // Update fields (add null checks if partial updates are allowed)
         existingTask.setTitle(title);
@@ -60,13 +370,325 @@ public class TaskService {
         existingTask.setStatus(status);
         // last_modified_date is updated by the DB trigger
 
-        return taskDao.merge(existingTask); // Use merge for updates
+        Task merged = taskDao.merge(existingTask); // Use merge for updates
+        taskChanges.fire(TaskChangeEvent.of(TaskChange.updated(before, TaskView.of(merged))));
+        return merged;
+    }
+
+    /**
+     * Changes only the given fields of a task (null means "leave as is") if it is still at
+     * {@code expectedVersion}, with one conditional UPDATE; concurrent edits are reported as
+     * {@link TaskPatchOutcome#CONFLICT} rather than overwritten. When the task is in the shared
+     * cache at that version this is the only round trip; otherwise its current row is read first.
+     */
+    public TaskPatchResult patchTask(Long taskId, Long expectedVersion, String title, String description,
+                                     Timestamp dueDate, TaskPriority priority, TaskStatus status) {
+        if (taskId == null || expectedVersion == null) {
+            throw new IllegalArgumentException("Task ID and version are required.");
+        }
+        if (title != null && title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Title must not be empty.");
+        }
+        if (title == null && description == null && dueDate == null && priority == null && status == null) {
+            throw new IllegalArgumentException("Nothing to update.");
+        }
+        // The row before the write, for the change event: a cached copy at the expected version is exactly that row
+        TaskView before = taskDao.findCachedById(taskId)
+                .filter(task -> expectedVersion.equals(task.getVersion()))
+                .map(TaskView::of)
+                .orElse(null);
+        if (before == null) {
+            Optional<TaskView> current = taskDao.findViewById(taskId);
+            if (!current.isPresent()) {
+                return new TaskPatchResult(TaskPatchOutcome.NOT_FOUND, null);
+            }
+            checkOwner(taskId, current.get().getUserId()); // before a conflict hands out the row
+            if (!expectedVersion.equals(current.get().getVersion())) {
+                return new TaskPatchResult(TaskPatchOutcome.CONFLICT, current.get());
+            }
+            before = current.get();
+        } else {
+            checkOwner(taskId, before.getUserId());
+        }
+        writeBehind.discard(taskId, status != null, priority != null);
+        if (taskDao.patch(taskId, expectedVersion, title, description, dueDate, priority, status) == 0) {
+            Optional<TaskView> current = taskDao.findViewById(taskId);
+            return current.isPresent()
+                    ? new TaskPatchResult(TaskPatchOutcome.CONFLICT, current.get())
+                    : new TaskPatchResult(TaskPatchOutcome.NOT_FOUND, null);
+        }
+        TaskView after = new TaskView(before.getTaskId(), before.getUserId(),
+                title != null ? title : before.getTitle(),
+                description != null ? description : before.getDescription(),
+                dueDate != null ? new Date(dueDate.getTime()) : before.getDueDate(),
+                priority != null ? priority : before.getPriority(),
+                status != null ? status : before.getStatus(),
+                before.getCreatedDate(), null, expectedVersion + 1);
+        taskChanges.fire(TaskChangeEvent.of(TaskChange.updated(before, after)));
+        return new TaskPatchResult(TaskPatchOutcome.UPDATED, after);
     }
 
     public void deleteTask(Long taskId) {
-        // Optional: Check if task exists before trying to delete
-        // Task task = taskDao.findById(taskId).orElseThrow(() -> new IllegalArgumentException("Task not found with ID: " + taskId));
-        taskDao.removeById(taskId);
+        // Deleting a missing task stays a no-op
+        taskDao.findById(taskId).ifPresent(task -> {
+            checkOwner(taskId, task.getUserId());
+            TaskView before = TaskView.of(task);
+            tombstoneDao.insertForTaskIds(Collections.singletonList(taskId));
+            taskDao.remove(task);
+            taskChanges.fire(TaskChangeEvent.of(TaskChange.deleted(before)));
+        });
+    }
+
+    // --- Bulk operations: a single UPDATE/DELETE per call, no entities are loaded ---
+
+    public int updateTaskStatuses(List<Long> taskIds, TaskStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status is required.");
+        }
+        Set<Long> ids = distinctIds(taskIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Set<Long> userIds = taskDao.findUserIdsByTaskIds(ids);
+        checkOwner(userIds);
+        writeBehind.discard(ids, true, false);
+        int updated = taskDao.updateStatusByIds(ids, SessionTokens.currentUserId(), status);
+        if (updated > 0) {
+            taskChanges.fire(TaskChangeEvent.bulk(userIds));
+        }
+        return updated;
+    }
+
+    public int deleteTasks(List<Long> taskIds) {
+        Set<Long> ids = distinctIds(taskIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Set<Long> userIds = taskDao.findUserIdsByTaskIds(ids);
+        checkOwner(userIds);
+        Long sessionUserId = SessionTokens.currentUserId(); // also leaves out tasks created since the check
+        tombstoneDao.insertForTaskIds(ids, sessionUserId);
+        int deleted = taskDao.deleteByIds(ids, sessionUserId);
+        if (deleted > 0) {
+            taskChanges.fire(TaskChangeEvent.bulk(userIds));
+        }
+        return deleted;
+    }
+
+    public int deleteCompletedTasksBefore(Long userId, Date before) {
+        if (userId == null || before == null) {
+            throw new IllegalArgumentException("User ID and date are required.");
+        }
+        tombstoneDao.insertForUserIdAndStatusModifiedBefore(userId, TaskStatus.COMPLETED, before);
+        int deleted = taskDao.deleteByUserIdAndStatusModifiedBefore(userId, TaskStatus.COMPLETED, before);
+        if (deleted > 0) {
+            taskChanges.fire(TaskChangeEvent.bulk(Collections.singleton(userId)));
+        }
+        return deleted;
+    }
+
+    // --- Archive: COMPLETED tasks leave the TASK table after nimble.archive.retentionDays ---
+
+    /**
+     * Moves up to {@code limit} COMPLETED tasks last modified before {@code before} into the
+     * archive, lowest ID first, with one INSERT ... SELECT and one DELETE per chunk of IDs. The
+     * picked tasks are locked and re-checked first; those changed since, being changed by another
+     * transaction, or with a queued write-behind change are left for a later run. Like any
+     * deletion, archival leaves tombstones, so delta sync clients drop the tasks. Returns the
+     * number archived.
+     */
+    public int archiveCompletedTasks(Date before, int limit) {
+        if (before == null) {
+            throw new IllegalArgumentException("Date is required.");
+        }
+        Map<Long, TaskView> candidates = new LinkedHashMap<>();
+        for (TaskView task : taskDao.findViewsByStatusModifiedBefore(TaskStatus.COMPLETED, before, limit)) {
+            if (!writeBehind.isPending(task.getTaskId())) {
+                candidates.put(task.getTaskId(), task);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        // Tasks changed since the read above, or being changed now, are left for the next run
+        Set<Long> ids = taskDao.lockIdsByStatusModifiedBefore(candidates.keySet(), TaskStatus.COMPLETED, before);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archiveDao.insertFromTasks(ids, TaskStatus.COMPLETED, before);
+        tombstoneDao.insertForTaskIds(ids);
+        int archived = taskDao.deleteByIdsAndStatusModifiedBefore(ids, TaskStatus.COMPLETED, before);
+        List<TaskChange> changes = new ArrayList<>();
+        for (Long id : ids) {
+            changes.add(TaskChange.deleted(candidates.get(id)));
+        }
+        taskChanges.fire(TaskChangeEvent.of(changes));
+        return archived;
+    }
+
+    /** Archived tasks of the user, newest (highest ID) first; they are read-only. */
+    public TaskPage findArchivedTaskPage(Long userId, String pageToken, Integer pageSize) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        int limit = pageLimit(pageSize);
+        List<TaskView> rows = archiveDao.findViewPageByUserId(userId, decodeArchivePosition(pageToken), limit + 1);
+        if (rows.size() <= limit) {
+            return new TaskPage(rows, null);
+        }
+        List<TaskView> page = new ArrayList<>(rows.subList(0, limit));
+        return new TaskPage(page, encodeArchivePosition(page.get(limit - 1).getTaskId()));
+    }
+
+    // --- Write-behind: acknowledged now, written in batches by TaskWriteBehindFlusher ---
+
+    /**
+     * Queues a status and/or priority change and returns without touching the database. Changes
+     * to the same task are merged until the next flush, so rapid toggling costs one write. Point
+     * reads ({@link #findTaskById}, {@link #findTaskViewById}) see the change at once; lists and
+     * other queries see it after the flush. The task is not checked here, except that in a session
+     * its owner is looked up (from the shared cache when it is there): changes to tasks that no
+     * longer exist are dropped at flush time. Returns false if the change was written right away
+     * instead, because the queue is full or write-behind is disabled.
+     */
+    public boolean queueTaskUpdate(Long taskId, TaskStatus status, TaskPriority priority) {
+        if (taskId == null) {
+            throw new IllegalArgumentException("Task ID is required.");
+        }
+        if (status == null && priority == null) {
+            throw new IllegalArgumentException("Status or priority is required.");
+        }
+        if (SessionTokens.currentUserId() != null) {
+            Optional<Task> cached = taskDao.findCachedById(taskId);
+            Set<Long> owners = cached.isPresent() ? Collections.singleton(cached.get().getUserId())
+                    : taskDao.findUserIdsByTaskIds(Collections.singleton(taskId));
+            for (Long owner : owners) {
+                checkOwner(taskId, owner);
+            }
+        }
+        if (writeBehind.offer(taskId, status, priority)) {
+            return true;
+        }
+        writeStatusAndPriority(Collections.singletonList(new TaskWriteBehindQueue.Update(taskId, status, priority, System.nanoTime())), false);
+        return false;
+    }
+
+    /**
+     * Writes queued changes in the caller's transaction: the current rows are read with one query,
+     * changes that would not alter a row are skipped, and the rest are written with one JDBC batch
+     * of conditional UPDATEs, each applied only if the row is still at the version just read.
+     * Changes that left the queue after the batch was taken are skipped: a synchronous write
+     * discards the queued fields before it writes, so either the discard is seen here, or that
+     * write changes the version first or comes after this one. Returns the number of tasks written.
+     */
+    public int applyQueuedUpdates(List<TaskWriteBehindQueue.Update> updates) {
+        return writeStatusAndPriority(updates, true);
+    }
+
+    private int writeStatusAndPriority(List<TaskWriteBehindQueue.Update> updates, boolean queued) {
+        Map<Long, TaskWriteBehindQueue.Update> byTaskId = new HashMap<>();
+        for (TaskWriteBehindQueue.Update update : updates) {
+            byTaskId.put(update.getTaskId(), update);
+        }
+        List<TaskView> targets = new ArrayList<>(); // values to write, at the version the row must still have
+        List<TaskChange> changes = new ArrayList<>();
+        for (TaskView before : taskDao.findViewsByIds(byTaskId.keySet())) {
+            TaskWriteBehindQueue.Update update = byTaskId.get(before.getTaskId());
+            if (queued && !writeBehind.isQueued(update)) {
+                continue; // discarded or replaced since the batch was taken; checked after the read, see above
+            }
+            TaskStatus status = update.getStatus() != null ? update.getStatus() : before.getStatus();
+            TaskPriority priority = update.getPriority() != null ? update.getPriority() : before.getPriority();
+            if (status == before.getStatus() && priority == before.getPriority()) {
+                continue; // toggled back to where it was
+            }
+            targets.add(new TaskView(before.getTaskId(), before.getUserId(), before.getTitle(), before.getDescription(),
+                    before.getDueDate(), priority, status, before.getCreatedDate(), null, before.getVersion()));
+            changes.add(TaskChange.updated(before, new TaskView(before.getTaskId(), before.getUserId(), before.getTitle(),
+                    before.getDescription(), before.getDueDate(), priority, status, before.getCreatedDate(), null, before.getVersion() + 1)));
+        }
+        Set<Long> written = taskDao.updateStatusAndPriorityIfVersion(targets);
+        changes.removeIf(change -> !written.contains(change.getAfter().getTaskId())); // lost to a newer write
+        if (!changes.isEmpty()) {
+            taskChanges.fire(TaskChangeEvent.of(changes));
+        }
+        return changes.size();
+    }
+
+    /**
+     * Rejects a call that runs in another user's session (see {@link SessionTokens#callAs}) than
+     * the owner of the task it addresses by ID. Calls without a session are not checked.
+     */
+    private static void checkOwner(Long taskId, Long ownerUserId) {
+        Long sessionUserId = SessionTokens.currentUserId();
+        if (sessionUserId != null && !sessionUserId.equals(ownerUserId)) {
+            throw new SessionException(SessionException.Reason.FORBIDDEN, "Task " + taskId + " belongs to another user.");
+        }
+    }
+
+    /** As {@link #checkOwner(Long, Long)}, for the owners of all tasks a call addresses. */
+    private static void checkOwner(Collection<Long> ownerUserIds) {
+        Long sessionUserId = SessionTokens.currentUserId();
+        for (Long ownerUserId : ownerUserIds) {
+            if (sessionUserId != null && !sessionUserId.equals(ownerUserId)) {
+                throw new SessionException(SessionException.Reason.FORBIDDEN, "Some of the tasks belong to another user.");
+            }
+        }
+    }
+
+    private static int pageLimit(Integer pageSize) {
+        return pageSize == null || pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    private static String encodeSearchOffset(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("o" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeSearchOffset(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int offset = raw.startsWith("o") ? Integer.parseInt(raw.substring(1)) : -1;
+            if (offset < 0 || offset > MAX_SEARCH_OFFSET) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException and bad Base64
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
+
+    private static String encodeArchivePosition(Long taskId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("a" + taskId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeArchivePosition(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (!raw.startsWith("a")) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+            return Long.valueOf(raw.substring(1));
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException and bad Base64
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
+
+    private static Set<Long> distinctIds(List<Long> taskIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (taskIds != null) {
+            for (Long id : taskIds) {
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
     }
 
     // Add more specific business logic (e.g., changeTaskStatus)
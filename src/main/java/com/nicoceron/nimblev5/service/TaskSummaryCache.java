@@ -0,0 +1,323 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskCount;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * In-memory task counts per user, so a dashboard poll costs O(1) instead of a full task listing.
+ * <p>
+ * A user's aggregate is built lazily from one GROUP BY query and then kept current from the
+ * {@link TaskChangeEvent}s of committed transactions. Set-based writes drop the aggregate instead
+ * (they do not say which rows changed), and so does any delta that would drive a count negative.
+ * Aggregates are also rebuilt after {@code nimble.taskSummary.maxAgeSeconds} as a guard against
+ * drift from writes that bypass {@link TaskService}, and evicted after
+ * {@code nimble.taskSummary.idleSeconds} without a read.
+ * <p>
+ * The overdue count moves with the clock, not just with writes: open tasks due in the future
+ * are kept in a due-date ordered map and drained into the overdue count as their time passes.
+ * <p>
+ * A freshly loaded aggregate is only installed if no write for that user was in flight while
+ * it loaded; otherwise the result is returned once and the next read loads again. This keeps a
+ * commit from being counted both by the query and by its delta.
+ */
+@ApplicationScoped
+public class TaskSummaryCache implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(TaskSummaryCache.class.getName());
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final String UNSET = "NONE";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int maxUsers = Integer.getInteger("nimble.taskSummary.maxUsers", 50_000);
+    private final long idleNanos = TimeUnit.SECONDS.toNanos(Long.getLong("nimble.taskSummary.idleSeconds", 900L));
+    private final long maxAgeNanos = TimeUnit.SECONDS.toNanos(Long.getLong("nimble.taskSummary.maxAgeSeconds", 3600L));
+
+    // An Aggregate, or a Build marker while that user's aggregate is being loaded.
+    private final ConcurrentHashMap<Long, Object> entries = new ConcurrentHashMap<>();
+    // Per user: transactions that fired a TaskChangeEvent and have not completed yet.
+    private final ConcurrentHashMap<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Returns the user's summary, running {@code loader} (rows as returned by
+     * {@code TaskDao.countByUserIdGroupedByStatusPriorityAndDueDate}) if it is not cached.
+     */
+    public TaskSummary get(Long userId, Supplier<List<Object[]>> loader) {
+        long nowNanos = System.nanoTime();
+        sweepIfDue(nowNanos);
+
+        Object entry = entries.get(userId);
+        if (entry instanceof Aggregate && nowNanos - ((Aggregate) entry).loadedAtNanos < maxAgeNanos) {
+            hits.increment();
+            return ((Aggregate) entry).summarize(userId, nowNanos);
+        }
+        misses.increment();
+
+        Build build = new Build();
+        boolean registered = entry == null
+                ? entries.putIfAbsent(userId, build) == null
+                : entry instanceof Aggregate && entries.replace(userId, entry, build);
+        try {
+            Aggregate loaded = Aggregate.load(loader.get(), System.currentTimeMillis(), nowNanos);
+            loads.increment();
+            if (registered) {
+                entries.compute(userId, (id, current) -> current != build ? current
+                        : build.invalidated || pendingWrites.containsKey(id) ? null : loaded);
+            }
+            return loaded.summarize(userId, nowNanos);
+        } finally {
+            if (registered) {
+                entries.remove(userId, build); // only still there if the loader failed
+            }
+        }
+    }
+
+    /** Drops the user's aggregate; the next read loads it again. */
+    public void invalidate(Long userId) {
+        entries.computeIfPresent(userId, (id, entry) -> {
+            if (entry instanceof Build) {
+                ((Build) entry).invalidated = true;
+                return entry;
+            }
+            invalidations.increment();
+            return null;
+        });
+    }
+
+    void onTaskWrite(@Observes(during = TransactionPhase.IN_PROGRESS) TaskChangeEvent event) {
+        for (Long userId : event.getUserIds()) {
+            pendingWrites.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    void onTaskWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) TaskChangeEvent event) {
+        try {
+            long nowMillis = System.currentTimeMillis();
+            for (TaskChange change : event.getChanges()) {
+                entries.computeIfPresent(change.getUserId(), (id, entry) -> {
+                    if (entry instanceof Build) {
+                        ((Build) entry).invalidated = true;
+                        return entry;
+                    }
+                    deltas.increment();
+                    if (((Aggregate) entry).apply(change, nowMillis)) {
+                        return entry;
+                    }
+                    LOG.warning("Task summary for user " + id + " went inconsistent; it will be reloaded.");
+                    invalidations.increment();
+                    return null;
+                });
+            }
+            for (Long userId : event.getBulkChangedUserIds()) {
+                invalidate(userId);
+            }
+        } finally {
+            writeCompleted(event);
+        }
+    }
+
+    void onTaskWriteRolledBack(@Observes(during = TransactionPhase.AFTER_FAILURE) TaskChangeEvent event) {
+        writeCompleted(event);
+    }
+
+    public int size() { return entries.size(); }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_task_summary_users", "gauge", "Users with a task summary in memory.");
+        writer.sample("nimble_task_summary_users", size());
+        writer.help("nimble_task_summary_hits_total", "counter", "Summary reads answered from memory.");
+        writer.sample("nimble_task_summary_hits_total", getHitCount());
+        writer.help("nimble_task_summary_misses_total", "counter", "Summary reads that had to query the database.");
+        writer.sample("nimble_task_summary_misses_total", getMissCount());
+        writer.help("nimble_task_summary_loads_total", "counter", "GROUP BY queries run to build a summary.");
+        writer.sample("nimble_task_summary_loads_total", loads.sum());
+        writer.help("nimble_task_summary_deltas_total", "counter", "Committed task changes applied to a cached summary.");
+        writer.sample("nimble_task_summary_deltas_total", deltas.sum());
+        writer.help("nimble_task_summary_invalidations_total", "counter", "Summaries dropped by bulk writes or inconsistent deltas.");
+        writer.sample("nimble_task_summary_invalidations_total", invalidations.sum());
+        writer.help("nimble_task_summary_evictions_total", "counter", "Summaries dropped because they were idle or over capacity.");
+        writer.sample("nimble_task_summary_evictions_total", evictions.sum());
+    }
+
+    private void writeCompleted(TaskChangeEvent event) {
+        for (Long userId : event.getUserIds()) {
+            pendingWrites.merge(userId, -1, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private void sweepIfDue(long nowNanos) {
+        long next = nextSweepNanos.get();
+        if ((nowNanos - next < 0 && entries.size() <= maxUsers) || !nextSweepNanos.compareAndSet(next, nowNanos + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        List<Map.Entry<Long, Object>> live = new ArrayList<>();
+        for (Map.Entry<Long, Object> entry : entries.entrySet()) {
+            if (!(entry.getValue() instanceof Aggregate)) {
+                continue;
+            }
+            if (nowNanos - ((Aggregate) entry.getValue()).lastReadNanos >= idleNanos) {
+                if (entries.remove(entry.getKey(), entry.getValue())) {
+                    evictions.increment();
+                }
+            } else {
+                live.add(entry);
+            }
+        }
+        if (live.size() > maxUsers) {
+            // Still too many after dropping idle users: shed the least recently read tenth.
+            Collections.sort(live, Comparator.comparingLong(e -> ((Aggregate) e.getValue()).lastReadNanos));
+            int excess = live.size() - maxUsers + maxUsers / 10;
+            for (int i = 0; i < excess; i++) {
+                if (entries.remove(live.get(i).getKey(), live.get(i).getValue())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static final class Build {
+        volatile boolean invalidated;
+    }
+
+    // All mutable state is guarded by "this".
+    private static final class Aggregate {
+        final long[] byStatus = new long[STATUSES.length + 1];     // last slot: status not set
+        final long[] byPriority = new long[PRIORITIES.length + 1]; // last slot: priority not set
+        long total;
+        long overdue;
+        // Open tasks due at or after drainedUntilMillis: due instant -> count.
+        final TreeMap<Long, Long> upcoming = new TreeMap<>();
+        long drainedUntilMillis;
+        final long loadedAtNanos;
+        volatile long lastReadNanos;
+
+        private Aggregate(long nowMillis, long nowNanos) {
+            this.drainedUntilMillis = nowMillis;
+            this.loadedAtNanos = nowNanos;
+            this.lastReadNanos = nowNanos;
+        }
+
+        static Aggregate load(List<Object[]> rows, long nowMillis, long nowNanos) {
+            Aggregate aggregate = new Aggregate(nowMillis, nowNanos);
+            for (Object[] row : rows) {
+                aggregate.add((TaskStatus) row[0], (TaskPriority) row[1], (Date) row[2], ((Number) row[3]).longValue());
+            }
+            return aggregate;
+        }
+
+        synchronized boolean apply(TaskChange change, long nowMillis) {
+            drain(nowMillis);
+            boolean consistent = true;
+            if (change.getBefore() != null) {
+                consistent = add(change.getBefore(), -1);
+            }
+            if (change.getAfter() != null) {
+                consistent &= add(change.getAfter(), 1);
+            }
+            return consistent;
+        }
+
+        synchronized TaskSummary summarize(Long userId, long nowNanos) {
+            long nowMillis = System.currentTimeMillis();
+            drain(nowMillis);
+            lastReadNanos = nowNanos;
+
+            TaskSummary summary = new TaskSummary();
+            summary.setUserId(userId);
+            summary.setTotalCount(total);
+            summary.setOverdueCount(overdue);
+            summary.setAsOf(new Date(nowMillis));
+            for (int i = 0; i < STATUSES.length; i++) {
+                summary.getByStatus().add(new TaskCount(STATUSES[i].name(), byStatus[i]));
+            }
+            if (byStatus[STATUSES.length] > 0) {
+                summary.getByStatus().add(new TaskCount(UNSET, byStatus[STATUSES.length]));
+            }
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                summary.getByPriority().add(new TaskCount(PRIORITIES[i].name(), byPriority[i]));
+            }
+            if (byPriority[PRIORITIES.length] > 0) {
+                summary.getByPriority().add(new TaskCount(UNSET, byPriority[PRIORITIES.length]));
+            }
+            return summary;
+        }
+
+        private boolean add(TaskView task, long sign) {
+            return add(task.getStatus(), task.getPriority(), task.getDueDate(), sign);
+        }
+
+        // Returns false if any count went negative, i.e. the aggregate no longer matches the table.
+        private boolean add(TaskStatus status, TaskPriority priority, Date dueDate, long count) {
+            int s = status != null ? status.ordinal() : STATUSES.length;
+            int p = priority != null ? priority.ordinal() : PRIORITIES.length;
+            byStatus[s] += count;
+            byPriority[p] += count;
+            total += count;
+            boolean consistent = byStatus[s] >= 0 && byPriority[p] >= 0 && total >= 0;
+            if (status != TaskStatus.COMPLETED && dueDate != null) {
+                long due = dueDate.getTime();
+                if (due < drainedUntilMillis) {
+                    overdue += count;
+                    consistent &= overdue >= 0;
+                } else {
+                    Long current = upcoming.get(due);
+                    long updated = (current != null ? current : 0L) + count;
+                    if (updated == 0) {
+                        upcoming.remove(due);
+                    } else {
+                        upcoming.put(due, updated);
+                    }
+                    consistent &= updated >= 0;
+                }
+            }
+            return consistent;
+        }
+
+        private void drain(long nowMillis) {
+            if (nowMillis <= drainedUntilMillis) {
+                return;
+            }
+            SortedMap<Long, Long> due = upcoming.headMap(nowMillis);
+            for (Long count : due.values()) {
+                overdue += count;
+            }
+            due.clear();
+            drainedUntilMillis = nowMillis;
+        }
+    }
+}
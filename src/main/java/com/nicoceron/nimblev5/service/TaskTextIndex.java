@@ -0,0 +1,433 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.dao.UserDao;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import com.nicoceron.nimblev5.util.LongIntHashMap;
+import com.nicoceron.nimblev5.util.PostingList;
+import com.nicoceron.nimblev5.util.TextTokenizer;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory inverted index over task titles and descriptions, partitioned by user so a search
+ * only touches the searching user's postings. Results are ranked with BM25; title terms count
+ * double.
+ * <p>
+ * The index is loaded at startup by parallel workers, each indexing the tasks of one batch of
+ * users. A user whose partition is not loaded yet (startup still running, or dropped after a
+ * bulk write) is loaded on first search. After that, committed {@link TaskChangeEvent}s keep it
+ * current. Writes and loads may interleave, so the index can briefly hold a task that was just
+ * deleted or edited. Callers must check hits against the database (see
+ * {@link TaskService#fullTextSearch}) and report ghosts back through {@link #remove}.
+ * <p>
+ * Each partition stores postings as delta- and varint-encoded byte arrays keyed by a dense
+ * per-user document ordinal. Removing or re-indexing a task only retires its ordinal.
+ * Partitions compact themselves once a quarter of their ordinals are retired.
+ */
+@ApplicationScoped
+public class TaskTextIndex implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(TaskTextIndex.class.getName());
+    private static final int LOAD_USER_BATCH = 500;
+    private static final int TITLE_WEIGHT = 2;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private final int loadThreads = Integer.getInteger("nimble.textIndex.loadThreads", 4);
+
+    @Inject
+    private TaskDao taskDao;
+
+    @Inject
+    private UserDao userDao;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ConcurrentHashMap<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder lazyLoads = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final AtomicLong startupLoadMillis = new AtomicLong(-1);
+
+    void warmUp(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        long start = System.nanoTime();
+        UserBatches batches = new UserBatches();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; executor != null && i < loadThreads - 1; i++) {
+                workers.add(executor.submit(() -> loadBatches(batches)));
+            }
+            loadBatches(batches); // this thread works too, and is the only worker without an executor
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            startupLoadMillis.set((System.nanoTime() - start) / 1_000_000);
+            LOG.info("Task text index loaded " + batches.users + " users with " + (1 + workers.size())
+                    + " workers in " + startupLoadMillis.get() + " ms");
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.log(Level.WARNING, "Task text index startup load failed; users will be indexed on first search", e);
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the user's tasks containing every one of the (tokenized) terms, best first.
+     */
+    public List<Hit> search(Long userId, List<String> terms, int limit) {
+        searches.increment();
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Partition partition = partitions.get(userId);
+        if (partition == null || !partition.loaded) {
+            lazyLoads.increment();
+            partition = load(userId);
+        }
+        return partition.search(terms, limit);
+    }
+
+    /** Drops a task that no longer exists, e.g. one found to be a ghost while resolving hits. */
+    public void remove(Long userId, Long taskId) {
+        Partition partition = partitions.get(userId);
+        if (partition != null) {
+            partition.remove(taskId);
+        }
+    }
+
+    void onTaskWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) TaskChangeEvent event) {
+        for (TaskChange change : event.getChanges()) {
+            Partition partition = partitions.get(change.getUserId());
+            if (partition == null) {
+                continue; // not loaded: a later load reads the committed state
+            }
+            if (change.getAfter() == null) {
+                partition.remove(change.getBefore().getTaskId());
+            } else {
+                TaskView task = change.getAfter();
+                partition.index(task.getTaskId(), task.getTitle(), task.getDescription(), false);
+            }
+        }
+        // Set-based writes do not say which rows went away; reload those users on next search.
+        for (Long userId : event.getBulkChangedUserIds()) {
+            partitions.remove(userId);
+        }
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        long documents = 0;
+        long terms = 0;
+        long bytes = 0;
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                documents += partition.liveCount;
+                terms += partition.postings.size();
+                bytes += partition.sizeInBytes();
+            }
+        }
+        writer.help("nimble_text_index_users", "gauge", "Users with a loaded full-text partition.");
+        writer.sample("nimble_text_index_users", partitions.size());
+        writer.help("nimble_text_index_documents", "gauge", "Tasks in the full-text index.");
+        writer.sample("nimble_text_index_documents", documents);
+        writer.help("nimble_text_index_terms", "gauge", "Distinct terms, summed over user partitions.");
+        writer.sample("nimble_text_index_terms", terms);
+        writer.help("nimble_text_index_bytes", "gauge", "Approximate heap used by postings and document tables.");
+        writer.sample("nimble_text_index_bytes", bytes);
+        writer.help("nimble_text_index_searches_total", "counter", "Full-text searches.");
+        writer.sample("nimble_text_index_searches_total", searches.sum());
+        writer.help("nimble_text_index_lazy_loads_total", "counter", "Partitions loaded on first search instead of at startup.");
+        writer.sample("nimble_text_index_lazy_loads_total", lazyLoads.sum());
+        writer.help("nimble_text_index_compactions_total", "counter", "Partition compactions after removals.");
+        writer.sample("nimble_text_index_compactions_total", compactions.sum());
+        writer.help("nimble_text_index_startup_load_seconds", "gauge", "Duration of the startup bulk load, -1 if it did not complete.");
+        writer.sample("nimble_text_index_startup_load_seconds", startupLoadMillis.get() < 0 ? -1 : startupLoadMillis.get() / 1000.0);
+    }
+
+    private Partition load(Long userId) {
+        Partition partition = partitions.computeIfAbsent(userId, id -> new Partition());
+        index(taskDao.findTextRowsByUserIds(Collections.singletonList(userId)));
+        partition.loaded = true;
+        return partition;
+    }
+
+    private void loadBatches(UserBatches batches) {
+        List<Long> userIds;
+        while (!(userIds = batches.next()).isEmpty()) {
+            List<Partition> loading = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                loading.add(partitions.computeIfAbsent(userId, id -> new Partition()));
+            }
+            index(taskDao.findTextRowsByUserIds(userIds));
+            for (int i = 0; i < loading.size(); i++) {
+                Partition partition = loading.get(i);
+                if (partition.isEmpty()) {
+                    partitions.remove(userIds.get(i), partition); // users without tasks cost nothing until they search
+                } else {
+                    partition.loaded = true;
+                    partition.trim();
+                }
+            }
+        }
+    }
+
+    // Rows are [taskId, userId, title, description]. A task already indexed was written by a
+    // newer event than this read, so it is kept.
+    private void index(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Partition partition = partitions.get((Long) row[1]);
+            if (partition != null) {
+                partition.index((Long) row[0], (String) row[2], (String) row[3], true);
+            }
+        }
+    }
+
+    /** Serves consecutive batches of user IDs to the load workers. */
+    private final class UserBatches {
+        private Long afterUserId;
+        private boolean exhausted;
+        long users;
+
+        synchronized List<Long> next() {
+            if (exhausted) {
+                return Collections.emptyList();
+            }
+            List<Object[]> page = userDao.findIdentityPage(afterUserId, LOAD_USER_BATCH);
+            List<Long> userIds = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                userIds.add((Long) row[0]);
+            }
+            exhausted = page.size() < LOAD_USER_BATCH;
+            if (!userIds.isEmpty()) {
+                afterUserId = userIds.get(userIds.size() - 1);
+            }
+            users += userIds.size();
+            return userIds;
+        }
+    }
+
+    /** A ranked match. */
+    public static final class Hit {
+        private final long taskId;
+        private final double score;
+
+        Hit(long taskId, double score) {
+            this.taskId = taskId;
+            this.score = score;
+        }
+
+        public long getTaskId() { return taskId; }
+        public double getScore() { return score; }
+    }
+
+    // One user's index. All state is guarded by "this".
+    private final class Partition {
+        final HashMap<String, PostingList> postings = new HashMap<>();
+        long[] taskIds = new long[16];     // ordinal -> task ID
+        int[] lengths = new int[16];       // ordinal -> weighted term count
+        final BitSet live = new BitSet();
+        final LongIntHashMap ordinals = new LongIntHashMap(16); // task ID -> live ordinal
+        int nextOrdinal;
+        int liveCount;
+        long liveLength;
+        volatile boolean loaded;
+
+        synchronized void index(long taskId, String title, String description, boolean onlyIfAbsent) {
+            int existing = ordinals.get(taskId);
+            if (existing != LongIntHashMap.MISSING) {
+                if (onlyIfAbsent) {
+                    return;
+                }
+                retire(taskId, existing);
+            }
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : TextTokenizer.tokenize(title)) {
+                frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+            }
+            for (String term : TextTokenizer.tokenize(description)) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            int ordinal = nextOrdinal++;
+            if (ordinal == taskIds.length) {
+                taskIds = Arrays.copyOf(taskIds, ordinal + (ordinal >> 1));
+                lengths = Arrays.copyOf(lengths, taskIds.length);
+            }
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(ordinal, entry.getValue());
+                length += entry.getValue();
+            }
+            taskIds[ordinal] = taskId;
+            lengths[ordinal] = length;
+            live.set(ordinal);
+            ordinals.put(taskId, ordinal);
+            liveCount++;
+            liveLength += length;
+        }
+
+        synchronized void remove(long taskId) {
+            int ordinal = ordinals.get(taskId);
+            if (ordinal != LongIntHashMap.MISSING) {
+                retire(taskId, ordinal);
+                if (nextOrdinal - liveCount > Math.max(64, nextOrdinal / 4)) {
+                    compact();
+                }
+            }
+        }
+
+        synchronized List<Hit> search(List<String> terms, int limit) {
+            // Intersect the postings, rarest term first, accumulating BM25 for surviving ordinals.
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : new LinkedHashSet<>(terms)) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.getDocumentCount(), b.getDocumentCount()));
+            double averageLength = liveCount > 0 ? (double) liveLength / liveCount : 1;
+
+            int[] candidates = null;
+            double[] scores = null;
+            int candidateCount = 0;
+            for (PostingList list : lists) {
+                double idf = Math.log(1 + (liveCount - list.getDocumentCount() + 0.5) / (list.getDocumentCount() + 0.5));
+                PostingList.Cursor cursor = list.cursor();
+                if (candidates == null) {
+                    candidates = new int[list.getDocumentCount()];
+                    scores = new double[list.getDocumentCount()];
+                    while (cursor.next()) {
+                        if (live.get(cursor.ordinal())) {
+                            candidates[candidateCount] = cursor.ordinal();
+                            scores[candidateCount++] = idf * termScore(cursor.frequency(), lengths[cursor.ordinal()], averageLength);
+                        }
+                    }
+                    continue;
+                }
+                int kept = 0;
+                boolean more = cursor.next();
+                for (int i = 0; i < candidateCount && more; i++) {
+                    while (more && cursor.ordinal() < candidates[i]) {
+                        more = cursor.next();
+                    }
+                    if (more && cursor.ordinal() == candidates[i]) {
+                        candidates[kept] = candidates[i];
+                        scores[kept++] = scores[i] + idf * termScore(cursor.frequency(), lengths[candidates[i]], averageLength);
+                    }
+                }
+                candidateCount = kept;
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a.score, b.score));
+            for (int i = 0; i < candidateCount; i++) {
+                if (best.size() < limit || scores[i] > best.peek().score) {
+                    best.add(new Hit(taskIds[candidates[i]], scores[i]));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort((a, b) -> Double.compare(b.score, a.score));
+            return hits;
+        }
+
+        synchronized boolean isEmpty() {
+            return nextOrdinal == 0;
+        }
+
+        synchronized void trim() {
+            for (PostingList list : postings.values()) {
+                list.trim();
+            }
+        }
+
+        long sizeInBytes() {
+            long bytes = taskIds.length * 12L + live.size() / 8 + ordinals.sizeInBytes();
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                bytes += 56 + 2L * entry.getKey().length() + entry.getValue().sizeInBytes();
+            }
+            return bytes;
+        }
+
+        private double termScore(int frequency, int length, double averageLength) {
+            return frequency * (BM25_K1 + 1) / (frequency + BM25_K1 * (1 - BM25_B + BM25_B * length / averageLength));
+        }
+
+        private void retire(long taskId, int ordinal) {
+            ordinals.remove(taskId);
+            live.clear(ordinal);
+            liveCount--;
+            liveLength -= lengths[ordinal];
+        }
+
+        // Renumbers live ordinals densely and rewrites every posting list without retired entries.
+        private void compact() {
+            int[] remap = new int[nextOrdinal];
+            int next = 0;
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                remap[ordinal] = live.get(ordinal) ? next++ : -1;
+            }
+            long[] newTaskIds = new long[Math.max(16, next + (next >> 1))];
+            int[] newLengths = new int[newTaskIds.length];
+            ordinals.clear();
+            live.clear();
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                if (remap[ordinal] >= 0) {
+                    newTaskIds[remap[ordinal]] = taskIds[ordinal];
+                    newLengths[remap[ordinal]] = lengths[ordinal];
+                    ordinals.put(taskIds[ordinal], remap[ordinal]);
+                    live.set(remap[ordinal]);
+                }
+            }
+            for (Iterator<Map.Entry<String, PostingList>> it = postings.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, PostingList> entry = it.next();
+                PostingList rewritten = new PostingList();
+                PostingList.Cursor cursor = entry.getValue().cursor();
+                while (cursor.next()) {
+                    if (remap[cursor.ordinal()] >= 0) {
+                        rewritten.add(remap[cursor.ordinal()], cursor.frequency());
+                    }
+                }
+                if (rewritten.getDocumentCount() == 0) {
+                    it.remove();
+                } else {
+                    rewritten.trim();
+                    entry.setValue(rewritten);
+                }
+            }
+            taskIds = newTaskIds;
+            lengths = newLengths;
+            nextOrdinal = next;
+            compactions.increment();
+        }
+    }
+}
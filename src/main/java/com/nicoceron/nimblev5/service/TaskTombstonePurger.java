@@ -0,0 +1,31 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.TaskTombstoneDao;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * Hourly cleanup of tombstones older than the delta sync retention period. Clients with an
+ * older watermark are told to resync instead, so nothing still needs them.
+ */
+@Singleton
+public class TaskTombstonePurger {
+
+    private static final Logger LOG = Logger.getLogger(TaskTombstonePurger.class.getName());
+
+    @Inject
+    private TaskTombstoneDao tombstoneDao;
+
+    @Schedule(hour = "*", minute = "17", persistent = false)
+    public void purgeExpiredTombstones() {
+        Date cutoff = new Date(System.currentTimeMillis() - TaskService.TOMBSTONE_RETENTION_MILLIS);
+        int purged = tombstoneDao.deleteDeletedBefore(cutoff);
+        if (purged > 0) {
+            LOG.info("Purged " + purged + " task tombstones older than " + cutoff);
+        }
+    }
+}
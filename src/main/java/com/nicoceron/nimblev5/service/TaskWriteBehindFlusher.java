@@ -0,0 +1,89 @@
+package com.nicoceron.nimblev5.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes out {@link TaskWriteBehindQueue}. A non-persistent interval timer checks every
+ * {@code nimble.writeBehind.tickMillis} whether a flush is due; the queue is also drained when
+ * the application shuts down. Each batch is written by {@link TaskService#applyQueuedUpdates} in
+ * its own transaction. A batch that fails stays queued and is retried on a later tick, after the
+ * entries that have not failed; see {@link TaskWriteBehindQueue#failed}.
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED) // one transaction per batch, in TaskService
+public class TaskWriteBehindFlusher {
+
+    private static final Logger LOG = Logger.getLogger(TaskWriteBehindFlusher.class.getName());
+
+    private final long tickMillis = Long.getLong("nimble.writeBehind.tickMillis", 100L);
+
+    @Resource
+    private TimerService timerService;
+
+    @Inject
+    private TaskWriteBehindQueue queue;
+
+    @Inject
+    private TaskService taskService;
+
+    @PostConstruct
+    void start() {
+        timerService.createIntervalTimer(tickMillis, tickMillis, new TimerConfig(null, false));
+    }
+
+    @Timeout
+    void tick() {
+        if (queue.isFlushDue()) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    void drainOnShutdown() {
+        int pending = queue.getPendingCount();
+        if (pending > 0) {
+            LOG.info("Writing " + pending + " queued task updates before shutdown.");
+            flush();
+        }
+    }
+
+    /**
+     * Writes what is queued now. Changes arriving during the flush wait for the next one, so a
+     * steady stream of updates cannot keep a flush going forever.
+     */
+    private void flush() {
+        int batches = queue.getPendingCount() / queue.getBatchSize() + 1;
+        for (int i = 0; i < batches; i++) {
+            List<TaskWriteBehindQueue.Update> batch = queue.nextBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                taskService.applyQueuedUpdates(batch);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Writing " + batch.size() + " queued task updates failed; retrying on a later tick.", e);
+                List<Long> dropped = queue.failed(batch);
+                if (!dropped.isEmpty()) {
+                    LOG.severe("Gave up on queued updates of " + dropped.size() + " tasks after repeated failures: " + dropped);
+                }
+                return;
+            }
+            queue.written(batch);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.domain.Task;
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.metrics.LatencyHistogram;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acknowledged but not yet written status/priority changes, at most one per task: a new change
+ * for a queued task is merged into the queued one, so a task toggled ten times between flushes
+ * costs one write (or none, if it ends where it started). {@link TaskWriteBehindFlusher} writes
+ * the queue out in batches once {@code nimble.writeBehind.batchSize} tasks are pending or the
+ * oldest change is {@code nimble.writeBehind.maxDelayMillis} old, and on shutdown.
+ * <p>
+ * An entry leaves the queue only after the transaction writing it has committed, and only if it
+ * was not replaced meanwhile; until then point reads see it through {@link #overlay}. The queue
+ * holds at most {@code nimble.writeBehind.maxPending} tasks; {@link #offer} refuses more, and
+ * the caller writes synchronously instead.
+ * <p>
+ * Synchronous writes to a task drop the queued fields they overwrite ({@link #discard}), so an
+ * older queued value cannot land on top of them. A batch taken before the discard is still safe:
+ * the flush skips entries no longer queued, and writes a row only if it is at the version read
+ * in that flush, see {@link TaskService#applyQueuedUpdates}.
+ * <p>
+ * A batch whose flush fails stays queued, but later batches take fresh entries first, so it
+ * cannot hold up the rest of the queue. A failed entry is retried after a backoff that doubles
+ * from {@code nimble.writeBehind.retryMillis} (default 1000), so a short database outage loses
+ * nothing; one that has failed {@code nimble.writeBehind.maxAttempts} times (default 8, about two
+ * minutes) is dropped and logged.
+ */
+@ApplicationScoped
+public class TaskWriteBehindQueue implements MetricsSource {
+
+    private final boolean enabled = !"false".equals(System.getProperty("nimble.writeBehind.enabled"));
+    private final int maxPending = Integer.getInteger("nimble.writeBehind.maxPending", 100_000);
+    private final int batchSize = Integer.getInteger("nimble.writeBehind.batchSize", 1_000);
+    private final int maxAttempts = Integer.getInteger("nimble.writeBehind.maxAttempts", 8);
+    private final long retryBaseNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("nimble.writeBehind.retryMillis", 1_000L));
+    private final long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("nimble.writeBehind.maxDelayMillis", 1_000L));
+
+    private final ConcurrentMap<Long, Update> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LatencyHistogram lag = new LatencyHistogram();
+
+    /**
+     * One queued change. Immutable: merging replaces the entry, which is how a flush notices
+     * that an entry changed while it was being written.
+     */
+    public static final class Update {
+
+        private final Long taskId;
+        private final TaskStatus status;
+        private final TaskPriority priority;
+        private final long queuedNanos; // of the oldest change merged into this one
+        private final int attempts; // failed flushes so far
+        private final long retryNanos; // System.nanoTime() before which a failed entry is not retried
+
+        Update(Long taskId, TaskStatus status, TaskPriority priority, long queuedNanos) {
+            this(taskId, status, priority, queuedNanos, 0, 0);
+        }
+
+        private Update(Long taskId, TaskStatus status, TaskPriority priority, long queuedNanos, int attempts, long retryNanos) {
+            this.taskId = taskId;
+            this.status = status;
+            this.priority = priority;
+            this.queuedNanos = queuedNanos;
+            this.attempts = attempts;
+            this.retryNanos = retryNanos;
+        }
+
+        public Long getTaskId() { return taskId; }
+        public TaskStatus getStatus() { return status; } // null: unchanged
+        public TaskPriority getPriority() { return priority; } // null: unchanged
+    }
+
+    /**
+     * Queues the change, merging it into one already queued for the task. Returns false, leaving
+     * the queue as it was, if write-behind is disabled or the queue is full.
+     */
+    public boolean offer(Long taskId, TaskStatus status, TaskPriority priority) {
+        if (!enabled || (pending.size() >= maxPending && !pending.containsKey(taskId))) {
+            refused.increment();
+            return false;
+        }
+        long now = System.nanoTime();
+        pending.merge(taskId, new Update(taskId, status, priority, now), (old, change) -> {
+            coalesced.increment();
+            return new Update(taskId, change.status != null ? change.status : old.status,
+                    change.priority != null ? change.priority : old.priority, old.queuedNanos, old.attempts, old.retryNanos);
+        });
+        queued.increment();
+        return true;
+    }
+
+    /** Forgets queued fields of the task that a synchronous write is about to overwrite. */
+    public void discard(Long taskId, boolean status, boolean priority) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.computeIfPresent(taskId, (id, old) -> {
+            TaskStatus keptStatus = status ? null : old.status;
+            TaskPriority keptPriority = priority ? null : old.priority;
+            discarded.increment();
+            return keptStatus == null && keptPriority == null ? null : new Update(id, keptStatus, keptPriority, old.queuedNanos, old.attempts, old.retryNanos);
+        });
+    }
+
+    public void discard(Collection<Long> taskIds, boolean status, boolean priority) {
+        for (Long taskId : taskIds) {
+            discard(taskId, status, priority);
+        }
+    }
+
+    /** The view as it will be once the queued change for its task is written. */
+    public TaskView overlay(TaskView view) {
+        Update update = view != null ? pending.get(view.getTaskId()) : null;
+        if (update == null) {
+            return view;
+        }
+        return new TaskView(view.getTaskId(), view.getUserId(), view.getTitle(), view.getDescription(), view.getDueDate(),
+                update.priority != null ? update.priority : view.getPriority(),
+                update.status != null ? update.status : view.getStatus(),
+                view.getCreatedDate(), view.getLastModifiedDate(), view.getVersion());
+    }
+
+    /** Applies the queued change to {@code task}, which must be detached. */
+    public void overlay(Task task) {
+        Update update = pending.get(task.getTaskId());
+        if (update != null) {
+            if (update.status != null) task.setStatus(update.status);
+            if (update.priority != null) task.setPriority(update.priority);
+        }
+    }
+
+    /** Whether {@code update} is still the task's queued change, not discarded or merged into a newer one. */
+    public boolean isQueued(Update update) {
+        return pending.get(update.taskId) == update;
+    }
+
+    public boolean isPending(Long taskId) {
+        return !pending.isEmpty() && pending.containsKey(taskId);
+    }
+
+    /** True once a batch is full or the oldest change has waited long enough. */
+    public boolean isFlushDue() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        return pending.size() >= batchSize || System.nanoTime() - oldestQueuedNanos() >= maxDelayNanos;
+    }
+
+    /**
+     * Up to one batch of queued changes, those that never failed first, then failed ones whose
+     * backoff is over; they stay queued until
+     * {@link #written} or {@link #failed} is called.
+     */
+    public List<Update> nextBatch() {
+        List<Update> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        for (Update update : pending.values()) {
+            if (batch.size() == batchSize) {
+                return batch;
+            }
+            if (update.attempts == 0) {
+                batch.add(update);
+            }
+        }
+        long now = System.nanoTime();
+        for (Update update : pending.values()) {
+            if (batch.size() == batchSize) {
+                break;
+            }
+            if (update.attempts > 0 && now - update.retryNanos >= 0) {
+                batch.add(update);
+            }
+        }
+        return batch;
+    }
+
+    public int getBatchSize() { return batchSize; }
+    public int getPendingCount() { return pending.size(); }
+
+    /** Removes the committed changes, except those replaced by a newer change in the meantime. */
+    public void written(List<Update> batch) {
+        long now = System.nanoTime();
+        for (Update update : batch) {
+            if (pending.remove(update.taskId, update)) {
+                lag.record(now - update.queuedNanos);
+                written.increment();
+            }
+        }
+    }
+
+    /**
+     * Counts a failed flush against the batch's entries that were not replaced meanwhile. Those
+     * that reached {@code maxAttempts} are dropped; their task IDs are returned.
+     */
+    public List<Long> failed(List<Update> batch) {
+        failed.increment();
+        List<Long> droppedTaskIds = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Update update : batch) {
+            long backoff = retryBaseNanos << Math.min(update.attempts, 16);
+            Update retry = new Update(update.taskId, update.status, update.priority, update.queuedNanos, update.attempts + 1, now + backoff);
+            if (retry.attempts >= maxAttempts) {
+                if (pending.remove(update.taskId, update)) {
+                    droppedTaskIds.add(update.taskId);
+                    dropped.increment();
+                }
+            } else {
+                pending.replace(update.taskId, update, retry);
+            }
+        }
+        return droppedTaskIds;
+    }
+
+    private long oldestQueuedNanos() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (Update update : pending.values()) {
+            if (update.queuedNanos - oldest < 0) {
+                oldest = update.queuedNanos;
+            }
+        }
+        return oldest;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_write_behind_pending", "gauge", "Tasks with a queued status/priority change.");
+        writer.sample("nimble_write_behind_pending", pending.size());
+        writer.help("nimble_write_behind_oldest_seconds", "gauge", "Age of the oldest queued change (the current write lag).");
+        writer.sample("nimble_write_behind_oldest_seconds", pending.isEmpty() ? 0 : (System.nanoTime() - oldestQueuedNanos()) / 1e9);
+        writer.help("nimble_write_behind_queued_total", "counter", "Changes accepted into the queue.");
+        writer.sample("nimble_write_behind_queued_total", queued.sum());
+        writer.help("nimble_write_behind_coalesced_total", "counter", "Changes merged into one already queued for the same task.");
+        writer.sample("nimble_write_behind_coalesced_total", coalesced.sum());
+        writer.help("nimble_write_behind_refused_total", "counter", "Changes written synchronously because the queue was full or disabled.");
+        writer.sample("nimble_write_behind_refused_total", refused.sum());
+        writer.help("nimble_write_behind_discarded_total", "counter", "Queued changes overridden by a synchronous write.");
+        writer.sample("nimble_write_behind_discarded_total", discarded.sum());
+        writer.help("nimble_write_behind_failed_batches_total", "counter", "Flush batches whose transaction failed.");
+        writer.sample("nimble_write_behind_failed_batches_total", failed.sum());
+        writer.help("nimble_write_behind_dropped_total", "counter", "Queued changes given up after nimble.writeBehind.maxAttempts failed flushes.");
+        writer.sample("nimble_write_behind_dropped_total", dropped.sum());
+        writer.help("nimble_write_behind_written_total", "counter", "Queued entries whose flush committed.");
+        writer.sample("nimble_write_behind_written_total", written.sum());
+        writer.help("nimble_write_behind_lag_seconds", "summary", "Time from a change being queued to its flush committing.");
+        writer.latency("nimble_write_behind_lag_seconds", null, null, lag);
+    }
+}
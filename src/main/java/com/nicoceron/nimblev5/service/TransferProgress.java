@@ -0,0 +1,110 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Progress of bulk exports and imports. A running transfer logs its row count and throughput
+ * every {@code nimble.transfer.progressIntervalSeconds}, and once more when it ends; the totals
+ * and the throughput of the latest run per operation are published on {@code /metrics}.
+ */
+@ApplicationScoped
+public class TransferProgress implements MetricsSource {
+
+    private static final Logger LOG = Logger.getLogger(TransferProgress.class.getName());
+
+    private final long intervalNanos = TimeUnit.SECONDS.toNanos(Long.getLong("nimble.transfer.progressIntervalSeconds", 10L));
+
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    private static final class OperationStats {
+
+        final LongAdder rows = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final AtomicInteger running = new AtomicInteger();
+        volatile double rowsPerSecond;
+    }
+
+    /** One export or import. Not thread-safe: a run is driven by one thread. */
+    public final class Run {
+
+        private final String operation;
+        private final OperationStats stats;
+        private final long startNanos = System.nanoTime();
+        private long nextReportNanos = startNanos + intervalNanos;
+        private long rows;
+
+        private Run(String operation, OperationStats stats) {
+            this.operation = operation;
+            this.stats = stats;
+        }
+
+        public void add(long count) {
+            rows += count;
+            stats.rows.add(count);
+            if (count > 0 && System.nanoTime() - nextReportNanos >= 0) {
+                nextReportNanos = System.nanoTime() + intervalNanos;
+                stats.rowsPerSecond = getRowsPerSecond();
+                LOG.info(operation + ": " + rows + " rows so far, " + Math.round(getRowsPerSecond()) + " rows/s");
+            }
+        }
+
+        public void finish(boolean succeeded) {
+            stats.running.decrementAndGet();
+            stats.rowsPerSecond = getRowsPerSecond();
+            if (!succeeded) {
+                stats.failures.increment();
+            }
+            LOG.info(operation + (succeeded ? " finished: " : " failed after ") + rows + " rows in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms, " + Math.round(getRowsPerSecond()) + " rows/s");
+        }
+
+        public long getRows() { return rows; }
+
+        public double getRowsPerSecond() {
+            long elapsed = System.nanoTime() - startNanos;
+            return elapsed > 0 ? rows * 1e9 / elapsed : 0;
+        }
+    }
+
+    /** Starts a run of {@code operation}, e.g. {@code export_tasks}. */
+    public Run start(String operation) {
+        OperationStats stats = operations.computeIfAbsent(operation, o -> new OperationStats());
+        stats.running.incrementAndGet();
+        LOG.info(operation + " started");
+        return new Run(operation, stats);
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        List<String> names = new ArrayList<>(operations.keySet());
+        Collections.sort(names);
+        writer.help("nimble_transfer_running", "gauge", "Bulk exports/imports in progress, by operation.");
+        for (String name : names) {
+            writer.sample("nimble_transfer_running", "operation", name, operations.get(name).running.get());
+        }
+        writer.help("nimble_transfer_rows_total", "counter", "Rows exported or imported, by operation.");
+        for (String name : names) {
+            writer.sample("nimble_transfer_rows_total", "operation", name, operations.get(name).rows.sum());
+        }
+        writer.help("nimble_transfer_failures_total", "counter", "Bulk exports/imports that ended with an error.");
+        for (String name : names) {
+            writer.sample("nimble_transfer_failures_total", "operation", name, operations.get(name).failures.sum());
+        }
+        writer.help("nimble_transfer_rows_per_second", "gauge", "Throughput of the latest run, updated as it progresses.");
+        for (String name : names) {
+            writer.sample("nimble_transfer_rows_per_second", "operation", name, operations.get(name).rowsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.TaskView;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The record layout of exported and imported users and tasks: one flat record per row, with
+ * the column names below. Dates are ISO-8601 UTC instants, enums their names. Users include the
+ * password hash, so that a restored user can still log in.
+ */
+public final class TransferRecords {
+
+    public static final List<String> USER_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            "userId", "username", "email", "passwordHash", "createdDate"));
+
+    public static final List<String> TASK_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            "taskId", "userId", "title", "description", "dueDate", "priority", "status", "createdDate", "lastModifiedDate", "version"));
+
+    private TransferRecords() {
+    }
+
+    /** The values of {@code user} in {@link #USER_COLUMNS} order. */
+    public static Object[] values(User user) {
+        return new Object[] {user.getUserId(), user.getUsername(), user.getEmail(), user.getPasswordHash(), format(user.getCreatedDate())};
+    }
+
+    /** The values of {@code task} in {@link #TASK_COLUMNS} order. */
+    public static Object[] values(TaskView task) {
+        return new Object[] {task.getTaskId(), task.getUserId(), task.getTitle(), task.getDescription(), format(task.getDueDate()),
+                task.getPriority() != null ? task.getPriority().name() : null, task.getStatus() != null ? task.getStatus().name() : null,
+                format(task.getCreatedDate()), format(task.getLastModifiedDate()), task.getVersion()};
+    }
+
+    /** Parses a user record; {@code recordNumber} is only used in error messages. */
+    public static User user(Map<String, String> record, long recordNumber) {
+        User user = new User();
+        user.setUserId(parseLong(record, "userId", recordNumber));
+        user.setUsername(record.get("username"));
+        user.setEmail(record.get("email"));
+        user.setPasswordHash(record.get("passwordHash"));
+        user.setCreatedDate(parseDate(record, "createdDate", recordNumber));
+        if (user.getUserId() == null || isEmpty(user.getUsername()) || isEmpty(user.getEmail()) || isEmpty(user.getPasswordHash())) {
+            throw new IllegalArgumentException("Record " + recordNumber + ": userId, username, email and passwordHash are required.");
+        }
+        return user;
+    }
+
+    /** Parses a task record; {@code recordNumber} is only used in error messages. */
+    public static TaskView task(Map<String, String> record, long recordNumber) {
+        TaskView task = new TaskView(parseLong(record, "taskId", recordNumber), parseLong(record, "userId", recordNumber),
+                record.get("title"), record.get("description"), parseDate(record, "dueDate", recordNumber),
+                parseEnum(TaskPriority.class, record, "priority", recordNumber), parseEnum(TaskStatus.class, record, "status", recordNumber),
+                parseDate(record, "createdDate", recordNumber), parseDate(record, "lastModifiedDate", recordNumber),
+                parseLong(record, "version", recordNumber));
+        if (task.getTaskId() == null || task.getUserId() == null || isEmpty(task.getTitle())) {
+            throw new IllegalArgumentException("Record " + recordNumber + ": taskId, userId and title are required.");
+        }
+        return task;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String format(Date date) {
+        return date != null ? DateTimeFormatter.ISO_INSTANT.format(date.toInstant()) : null;
+    }
+
+    private static Long parseLong(Map<String, String> record, String column, long recordNumber) {
+        String value = record.get(column);
+        try {
+            return value != null ? Long.valueOf(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            throw invalid(column, value, recordNumber);
+        }
+    }
+
+    private static Date parseDate(Map<String, String> record, String column, long recordNumber) {
+        String value = record.get(column);
+        try {
+            return value != null ? Date.from(Instant.parse(value.trim())) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(column, value, recordNumber);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, Map<String, String> record, String column, long recordNumber) {
+        String value = record.get(column);
+        try {
+            return value != null ? Enum.valueOf(type, value.trim()) : null;
+        } catch (IllegalArgumentException e) {
+            throw invalid(column, value, recordNumber);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String column, String value, long recordNumber) {
+        return new IllegalArgumentException("Record " + recordNumber + ": invalid " + column + " '" + value + "'.");
+    }
+}
@@ -0,0 +1,222 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded near-cache for user point lookups, keyed by ID, username and email.
+ * <p>
+ * Entries expire after a TTL and the least recently used entry is evicted once the cache is
+ * full. Only immutable snapshots are stored; every hit returns a fresh detached {@link User},
+ * so callers may modify it (e.g. null out the password hash) without touching the cache.
+ * Only users that exist are cached, so a new registration never needs to evict a negative entry.
+ */
+@ApplicationScoped
+public class UserCache implements MetricsSource {
+
+    private final int maxSize = Integer.getInteger("nimble.userCache.maxSize", 10_000);
+    private final long ttlNanos = TimeUnit.SECONDS.toNanos(Long.getLong("nimble.userCache.ttlSeconds", 300L));
+
+    // All three maps are guarded by "this"; byId is in access order so its head is the LRU entry.
+    private final LinkedHashMap<Long, Snapshot> byId = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Long> byUsername = new HashMap<>();
+    private final Map<String, Long> byEmail = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public Optional<User> getById(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return lookup(byId.get(userId));
+        }
+    }
+
+    public Optional<User> getByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            Long userId = byUsername.get(username);
+            return lookup(userId != null ? byId.get(userId) : null);
+        }
+    }
+
+    public Optional<User> getByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            Long userId = byEmail.get(email);
+            return lookup(userId != null ? byId.get(userId) : null);
+        }
+    }
+
+    public void put(User user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        Snapshot snapshot = new Snapshot(user, System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            Snapshot previous = byId.remove(snapshot.userId);
+            if (previous != null) {
+                unindex(previous);
+            }
+            byId.put(snapshot.userId, snapshot);
+            byUsername.put(snapshot.username, snapshot.userId);
+            byEmail.put(snapshot.email, snapshot.userId);
+            Iterator<Snapshot> lru = byId.values().iterator();
+            while (byId.size() > maxSize && lru.hasNext()) {
+                Snapshot eldest = lru.next();
+                lru.remove();
+                unindex(eldest);
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops every entry that could describe this user: by ID and by both the old and new
+     * username/email. Call it whenever a user row is inserted or changed.
+     */
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        synchronized (this) {
+            if (user.getUserId() != null) {
+                removeEntry(user.getUserId());
+            }
+            removeEntry(byUsername.get(user.getUsername()));
+            removeEntry(byEmail.get(user.getEmail()));
+        }
+    }
+
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (this) {
+            removeEntry(userId);
+        }
+    }
+
+    /**
+     * Drops the user once a change to them commits, so a read between the in-transaction
+     * {@link #invalidate} and the commit cannot leave the old row cached; a deleted user goes
+     * only here.
+     */
+    void onUserWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangeEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byUsername.clear();
+        byEmail.clear();
+    }
+
+    public synchronized int size() { return byId.size(); }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getExpirationCount() { return expirations.sum(); }
+    public long getInvalidationCount() { return invalidations.sum(); }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_user_cache_size", "gauge", "Users currently cached.");
+        writer.sample("nimble_user_cache_size", size());
+        writer.help("nimble_user_cache_hits_total", "counter", "User lookups answered from the cache.");
+        writer.sample("nimble_user_cache_hits_total", getHitCount());
+        writer.help("nimble_user_cache_misses_total", "counter", "User lookups that went to the database.");
+        writer.sample("nimble_user_cache_misses_total", getMissCount());
+        writer.help("nimble_user_cache_evictions_total", "counter", "Entries evicted because the cache was full.");
+        writer.sample("nimble_user_cache_evictions_total", getEvictionCount());
+        writer.help("nimble_user_cache_expirations_total", "counter", "Entries dropped because their TTL passed.");
+        writer.sample("nimble_user_cache_expirations_total", getExpirationCount());
+        writer.help("nimble_user_cache_invalidations_total", "counter", "Entries dropped because the user changed.");
+        writer.sample("nimble_user_cache_invalidations_total", getInvalidationCount());
+    }
+
+    // Caller holds the lock.
+    private Optional<User> lookup(Snapshot snapshot) {
+        if (snapshot == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - snapshot.expiresAtNanos >= 0) {
+            byId.remove(snapshot.userId);
+            unindex(snapshot);
+            expirations.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(snapshot.toUser());
+    }
+
+    // Caller holds the lock.
+    private void removeEntry(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Snapshot removed = byId.remove(userId);
+        if (removed != null) {
+            unindex(removed);
+            invalidations.increment();
+        }
+    }
+
+    // Caller holds the lock. Only drops index keys that still point at this snapshot's user.
+    private void unindex(Snapshot snapshot) {
+        byUsername.remove(snapshot.username, snapshot.userId);
+        byEmail.remove(snapshot.email, snapshot.userId);
+    }
+
+    private static final class Snapshot {
+        final Long userId;
+        final String username;
+        final String email;
+        final String passwordHash;
+        final Long createdMillis;
+        final long expiresAtNanos;
+
+        Snapshot(User user, long expiresAtNanos) {
+            this.userId = user.getUserId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.passwordHash = user.getPasswordHash();
+            this.createdMillis = user.getCreatedDate() != null ? user.getCreatedDate().getTime() : null;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        User toUser() {
+            User user = new User();
+            user.setUserId(userId);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setPasswordHash(passwordHash);
+            user.setCreatedDate(createdMillis != null ? new Date(createdMillis) : null);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nicoceron.nimblev5.service;
+
+/**
+ * Fired by {@link UserService} inside the writing transaction when a user row is created,
+ * changed or deleted. Like {@link TaskChangeEvent}, observers that maintain derived state
+ * should act in {@code TransactionPhase.AFTER_SUCCESS}.
+ */
+public final class UserChangeEvent {
+
+    private final Long userId;
+    private final boolean deleted;
+
+    public UserChangeEvent(Long userId) {
+        this(userId, false);
+    }
+
+    private UserChangeEvent(Long userId, boolean deleted) {
+        this.userId = userId;
+        this.deleted = deleted;
+    }
+
+    /** The user row was deleted, with everything that belongs to it. */
+    public static UserChangeEvent deleted(Long userId) {
+        return new UserChangeEvent(userId, true);
+    }
+
+    public Long getUserId() { return userId; }
+    public boolean isDeleted() { return deleted; }
+}
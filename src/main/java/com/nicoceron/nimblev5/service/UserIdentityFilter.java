@@ -0,0 +1,88 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.dao.UserDao;
+import com.nicoceron.nimblev5.util.BloomFilter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory Bloom filter of every known username and email, used to answer most
+ * "is this taken?" questions without a database round trip.
+ * <p>
+ * A negative answer is definitive only for users registered through this node, so the filter is
+ * used only when {@code nimble.identityFilter.singleNode} says there is no other node. Otherwise,
+ * and until the startup warm-up has finished (or if it failed), every probe answers "maybe", so
+ * callers always fall back to the database. Deleted users stay in the filter, which only costs an
+ * extra query. The unique constraints on USERS remain the final arbiter.
+ */
+@ApplicationScoped
+public class UserIdentityFilter {
+
+    private static final Logger LOG = Logger.getLogger(UserIdentityFilter.class.getName());
+    private static final int WARM_UP_PAGE_SIZE = 5_000;
+
+    @Inject
+    private UserDao userDao;
+
+    private final BloomFilter filter = new BloomFilter(
+            Long.getLong("nimble.identityFilter.expectedEntries", 2_000_000L),
+            Double.parseDouble(System.getProperty("nimble.identityFilter.falsePositiveRate", "0.01")));
+
+    private final boolean singleNode = Boolean.getBoolean("nimble.identityFilter.singleNode");
+
+    private volatile boolean ready;
+
+    void warmUp(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!singleNode) {
+            LOG.info("User identity filter off: other nodes may register users (set nimble.identityFilter.singleNode if there are none)");
+            return;
+        }
+        long start = System.nanoTime();
+        long users = 0;
+        try {
+            Long afterUserId = null;
+            List<Object[]> page;
+            do {
+                page = userDao.findIdentityPage(afterUserId, WARM_UP_PAGE_SIZE);
+                for (Object[] row : page) {
+                    afterUserId = (Long) row[0];
+                    add((String) row[1], (String) row[2]);
+                }
+                users += page.size();
+            } while (page.size() == WARM_UP_PAGE_SIZE);
+            ready = true;
+            LOG.info("User identity filter warmed with " + users + " users in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "User identity filter warm-up failed; availability checks will query the database", e);
+        }
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            filter.put(usernameKey(username));
+        }
+        if (email != null) {
+            filter.put(emailKey(email));
+        }
+    }
+
+    public boolean mightContainUsername(String username) {
+        return !ready || filter.mightContain(usernameKey(username));
+    }
+
+    public boolean mightContainEmail(String email) {
+        return !ready || filter.mightContain(emailKey(email));
+    }
+
+    public boolean isReady() { return ready; }
+
+    private static String usernameKey(String username) { return "u:" + username; }
+    private static String emailKey(String email) { return "e:" + email; }
+}
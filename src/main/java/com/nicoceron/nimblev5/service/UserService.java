@@ -1,36 +1,78 @@
 package com.nicoceron.nimblev5.service;
 
+import com.nicoceron.nimblev5.dao.ReadOnly;
+import com.nicoceron.nimblev5.dao.TaskArchiveDao;
+import com.nicoceron.nimblev5.dao.TaskDao;
+import com.nicoceron.nimblev5.dao.TaskTombstoneDao;
 import com.nicoceron.nimblev5.dao.UserDao;
+import com.nicoceron.nimblev5.dao.UserDao.IdentityField;
 import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.VersionedUser;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
 
 // Use @ApplicationScoped and manual transaction handling (@Transactional from JTA or DeltaSpike)
 // if you don't want to use EJB. @Stateless is often simpler.
 @Stateless
 public class UserService {
 
+    private static final Logger LOG = Logger.getLogger(UserService.class.getName());
+
     @Inject
     private UserDao userDao;
 
-    // Inject a password hashing service here (e.g., BCrypt)
-    // For example: @Inject private PasswordHashingService hashingService;
+    @Inject
+    private TaskDao taskDao;
+
+    @Inject
+    private TaskTombstoneDao tombstoneDao;
+
+    @Inject
+    private TaskArchiveDao archiveDao;
+
+    @Inject
+    private UserCache userCache; // Near-cache for the point lookups below
+
+    @Inject
+    private UserIdentityFilter identityFilter; // Bloom filter of known usernames/emails
+
+    @Inject
+    private PasswordHasher passwordHasher; // PBKDF2 on its own bounded pool
+
+    @Inject
+    private AsyncExecutor async; // database permits around the queries of login and sign-up, never around hashing
+
+    @Inject
+    private UserVersions userVersions; // stamps for conditional reads
+
+    @Inject
+    private Event<UserChangeEvent> userChanges; // version stamp, user cache and sessions follow once committed
+
+    @Inject
+    private Event<TaskChangeEvent> taskChanges; // drops the user's summaries and index entries once committed
 
     public User registerUser(String username, String email, String plainPassword) {
-        // 1. Check if username or email already exists
-        if (userDao.findByUsername(username).isPresent()) {
-            throw new IllegalArgumentException("Username already exists: " + username);
-        }
-        if (userDao.findByEmail(email).isPresent()) {
-            throw new IllegalArgumentException("Email already exists: " + email);
+        // 1. Check if username or email already exists.
+        // On a single node the Bloom filter settles most new sign-ups without a query; otherwise one combined query.
+        // A concurrent registration can still slip through, which the unique constraints reject.
+        if (identityFilter.mightContainUsername(username) || identityFilter.mightContainEmail(email)) {
+            Set<IdentityField> taken = async.withDbPermit(() -> userDao.findTakenIdentityFields(username, email));
+            if (taken.contains(IdentityField.USERNAME)) {
+                throw new IllegalArgumentException("Username already exists: " + username);
+            }
+            if (taken.contains(IdentityField.EMAIL)) {
+                throw new IllegalArgumentException("Email already exists: " + email);
+            }
         }
 
-        // 2. Hash the password (!! IMPORTANT !!)
-        // Replace with actual hashing call
-        // String hashedPassword = hashingService.hashPassword(plainPassword);
-        String hashedPassword = hashPasswordPlaceholder(plainPassword); // Replace this placeholder!
+        // 2. Hash the password (fails fast with PasswordHashingBusyException when saturated)
+        String hashedPassword = passwordHasher.hash(plainPassword);
 
         // 3. Create and persist user
         User newUser = new User();
@@ -38,54 +80,119 @@ public class UserService {
         newUser.setEmail(email);
         newUser.setPasswordHash(hashedPassword); // Store the HASH
 
-        userDao.persist(newUser); // Transaction managed by @Stateless
+        async.withDbPermit(() -> {
+            userDao.persist(newUser); // Transaction managed by @Stateless
+            userDao.flush(); // the INSERT runs under the permit, only the commit follows
+            return newUser;
+        });
+        userCache.invalidate(newUser);
+        identityFilter.add(username, email);
+        userChanges.fire(new UserChangeEvent(newUser.getUserId()));
         return newUser;
     }
 
     public Optional<User> loginUser(String username, String plainPassword) {
-        System.out.println("Attempting login for username: " + username); // Log input
-        Optional<User> userOpt = userDao.findByUsername(username);
+        LOG.fine(() -> "Attempting login for username: " + username);
+        Optional<User> userOpt = findByUsernameCached(username);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             String storedHash = user.getPasswordHash(); // Get the stored hash
-            System.out.println("Stored hash for user: " + storedHash); // Log hash
-            System.out.println("Password provided for login: " + plainPassword); // Log plain password
 
-            // --- Your Password Check Logic ---
-            boolean passwordMatches = checkPasswordPlaceholder(plainPassword, storedHash); // Or your real check method
-            // --------------------------------
-
-            System.out.println("Password check result: " + passwordMatches); // Log the result
+            boolean passwordMatches = passwordHasher.verify(plainPassword, storedHash);
 
             if (passwordMatches) {
-                System.out.println("Login successful for: " + username);
+                LOG.fine(() -> "Login successful for: " + username);
+                if (passwordHasher.needsRehash(storedHash)) {
+                    // Upgrade outdated (or legacy placeholder) hashes while we have the plain password
+                    String newHash = passwordHasher.hash(plainPassword);
+                    async.withDbPermit(() -> userDao.updatePasswordHash(user.getUserId(), newHash));
+                    userCache.invalidate(user.getUserId());
+                    userChanges.fire(new UserChangeEvent(user.getUserId()));
+                    user.setPasswordHash(newHash);
+                }
                 return Optional.of(user);
             } else {
-                System.out.println("Password mismatch for: " + username);
+                LOG.info("Password mismatch for: " + username);
             }
         } else {
-            System.out.println("User not found: " + username);
+            LOG.info("User not found: " + username);
         }
         return Optional.empty(); // Login failed
     }
 
+    /**
+     * Cheap availability probe for sign-up forms: one indexed lookup, or on a single node usually
+     * the Bloom filter alone (see {@link UserIdentityFilter}).
+     */
+    public boolean isUsernameAvailable(String username) {
+        if (!identityFilter.mightContainUsername(username)) {
+            return true;
+        }
+        if (userCache.getByUsername(username).isPresent()) {
+            return false;
+        }
+        return !userDao.existsByUsername(username);
+    }
+
+    @ReadOnly
     public Optional<User> findUserById(Long userId) {
-        return userDao.findById(userId);
+        Optional<User> cached = userCache.getById(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<User> user = userDao.findById(userId);
+        user.ifPresent(userCache::put);
+        return user;
     }
 
-    // --- !! Placeholder Hashing Methods - REPLACE THESE !! ---
-    private String hashPasswordPlaceholder(String plainPassword) {
-        // In a real app, use a strong hashing algorithm like BCrypt
-        // Example using a simple (INSECURE) method for demonstration only:
-        System.err.println("WARNING: Using insecure placeholder password hashing!");
-        return "hashed_" + new StringBuilder(plainPassword).reverse().toString();
+    /**
+     * Conditional variant of {@link #findUserById}: if {@code ifNoneMatch} is still the user's
+     * version stamp, answers "not modified" without a lookup.
+     */
+    @ReadOnly
+    public VersionedUser findUserByIdIfModified(Long userId, String ifNoneMatch) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        String versionTag = userVersions.current(userId); // before the read, see UserVersions
+        if (userVersions.matches(versionTag, ifNoneMatch)) {
+            return new VersionedUser(true, versionTag, null);
+        }
+        return new VersionedUser(false, versionTag, findUserById(userId).orElse(null));
     }
 
-    private boolean checkPasswordPlaceholder(String plainPassword, String storedHash) {
-        System.err.println("WARNING: Using insecure placeholder password checking!");
-        return storedHash.equals(hashPasswordPlaceholder(plainPassword));
+    /**
+     * Deletes the user with all of their tasks, archived tasks and tombstones: one DELETE per
+     * table, no task is loaded. The user's sessions end once this commits. Returns false if there
+     * was no such user. The username and email stay in the Bloom filter, which only costs the next
+     * sign-up with them one query.
+     */
+    public boolean deleteUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        int tasks = taskDao.deleteByUserId(userId);
+        tombstoneDao.deleteByUserId(userId);
+        archiveDao.deleteByUserId(userId);
+        if (userDao.deleteById(userId) == 0) {
+            return false; // also no tasks: TASK.user_id references USERS
+        }
+        LOG.info("Deleted user " + userId + " with " + tasks + " tasks");
+        // The user's cache entry and sessions go once this commits (UserCache, SessionTokens)
+        taskChanges.fire(TaskChangeEvent.bulk(Collections.singleton(userId)));
+        userChanges.fire(UserChangeEvent.deleted(userId));
+        return true;
+    }
+
+    private Optional<User> findByUsernameCached(String username) {
+        Optional<User> cached = userCache.getByUsername(username);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<User> user = async.withDbPermit(() -> userDao.findByUsername(username));
+        user.ifPresent(userCache::put);
+        return user;
     }
-    // --- End Placeholder ---
 
     // Add other user-related business logic (update profile, change password etc.)
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.nicoceron.nimblev5.service;
+
+import com.nicoceron.nimblev5.metrics.MetricsSource;
+import com.nicoceron.nimblev5.metrics.MetricsWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user version stamps for conditional reads: a stamp changes whenever the user or any of
+ * their tasks is written, so a client holding the current stamp already has the current data.
+ * <p>
+ * Stamps are {@code <epoch>.<n>}: the epoch is random per process and {@code n} comes from one
+ * counter that only grows, so a stamp is never handed out twice. That makes forgetting a user
+ * always safe: their next read simply gets a new stamp and the client refetches once. The table
+ * is therefore bounded ({@code nimble.userVersions.maxUsers}) and a restart invalidates every
+ * stamp. Like the other in-memory caches, this assumes all writes go through this process.
+ * <p>
+ * Readers must take the stamp <em>before</em> reading the data, and stamps move only after the
+ * writing transaction commits. A read racing a write can then at worst pair new data with the
+ * old stamp, which costs one extra fetch, never a stale "not modified".
+ */
+@ApplicationScoped
+public class UserVersions implements MetricsSource {
+
+    private final int maxUsers = Integer.getInteger("nimble.userVersions.maxUsers", 200_000);
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+    private final LongAdder bumps = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** The user's current stamp, creating one if the user has none yet. */
+    public String current(Long userId) {
+        Long version = versions.get(userId);
+        if (version == null) {
+            version = versions.computeIfAbsent(userId, id -> sequence.incrementAndGet());
+            trim();
+        }
+        return epoch + '.' + Long.toString(version, 36);
+    }
+
+    /** Whether the client's stamp is {@code current}; counts the outcome for the metrics. */
+    public boolean matches(String current, String clientVersion) {
+        boolean match = current.equals(clientVersion);
+        (match ? notModified : modified).increment();
+        return match;
+    }
+
+    void onTaskWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) TaskChangeEvent event) {
+        for (Long userId : event.getUserIds()) {
+            bump(userId);
+        }
+    }
+
+    void onUserWriteCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserChangeEvent event) {
+        bump(event.getUserId());
+    }
+
+    private void bump(Long userId) {
+        if (userId != null) {
+            versions.put(userId, sequence.incrementAndGet());
+            bumps.increment();
+            trim();
+        }
+    }
+
+    /** Forgets arbitrary users once the table is over its bound; see the class comment for why that is safe. */
+    private void trim() {
+        if (versions.size() <= maxUsers) {
+            return;
+        }
+        int target = maxUsers - maxUsers / 10;
+        Iterator<Long> it = versions.keySet().iterator();
+        while (versions.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.help("nimble_user_versions_users", "gauge", "Users with a version stamp in memory.");
+        writer.sample("nimble_user_versions_users", versions.size());
+        writer.help("nimble_user_versions_not_modified_total", "counter", "Conditional reads answered as not modified, without a query.");
+        writer.sample("nimble_user_versions_not_modified_total", notModified.sum());
+        writer.help("nimble_user_versions_modified_total", "counter", "Conditional reads whose stamp was missing or outdated.");
+        writer.sample("nimble_user_versions_modified_total", modified.sum());
+        writer.help("nimble_user_versions_bumps_total", "counter", "Stamp changes caused by committed writes.");
+        writer.sample("nimble_user_versions_bumps_total", bumps.sum());
+        writer.help("nimble_user_versions_evictions_total", "counter", "Stamps forgotten to keep the table bounded.");
+        writer.sample("nimble_user_versions_evictions_total", evictions.sum());
+    }
+}
@@ -0,0 +1,186 @@
+package com.nicoceron.nimblev5.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows latency, in the style of TCP Vegas / gradient congestion control.
+ * <p>
+ * Completed calls report their duration. Once per window (at least {@code MIN_WINDOW_SAMPLES}
+ * calls and {@code WINDOW_NANOS}) the window's mean latency is compared with the baseline: the
+ * lowest window mean seen, drifting up slowly so that it follows a lasting change in the
+ * unloaded latency. While the short average stays within
+ * {@code TOLERANCE} of the baseline the limit grows by about its square root per window; as
+ * latency rises above it the limit shrinks in proportion, to at most half per window. A call
+ * reported as dropped (a timeout or an overloaded dependency) cuts the limit by
+ * {@code DROP_FACTOR} at once. The limit only grows while at least half of it is in use, so an
+ * idle period does not inflate it.
+ * <p>
+ * Beyond the limit, up to {@code maxQueue} callers wait at most {@code maxWaitNanos} for a slot;
+ * everyone else is refused at once. Waiters are served by {@link #release}, not in strict order.
+ */
+public final class AdaptiveLimiter {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double TOLERANCE = 1.5; // latency over the baseline that is still no overload
+    private static final double BASELINE_WEIGHT = 1.0 / 600; // weight of a slower window in the baseline (~1 min)
+    private static final double SMOOTHING = 0.2; // share of the new estimate taken per window
+    private static final double DROP_FACTOR = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private volatile double limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    // Current window; folded into the limit by whichever release closes it
+    private final LongAdder windowNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowPeak = new AtomicInteger(); // most calls in flight at once
+    private volatile double baselineNanos; // written only by the thread that closed the window; 0 until the first
+    private volatile double lastWindowNanos;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, long maxWaitNanos) {
+        if (minLimit < 1 || maxLimit < minLimit || maxQueue < 0 || maxWaitNanos < 0) {
+            throw new IllegalArgumentException("Invalid limiter bounds: min " + minLimit + ", max " + maxLimit
+                    + ", queue " + maxQueue + ", wait " + maxWaitNanos + " ns.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWaitNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, waiting briefly if the queue has room. Returns false if the call must be
+     * refused; otherwise the caller must call {@link #release} exactly once.
+     */
+    public boolean acquire() throws InterruptedException {
+        if (tryAcquire()) {
+            admitted.increment();
+            return true;
+        }
+        if (maxWaitNanos > 0) {
+            if (waiting.incrementAndGet() <= maxQueue) {
+                return await();
+            }
+            waiting.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private boolean await() throws InterruptedException {
+        queued.increment();
+        try {
+            lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+        try {
+            long remaining = maxWaitNanos;
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return false;
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            admitted.increment();
+            return true;
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /** Frees the slot of a call that took {@code nanos}; {@code drop} if it failed from overload. */
+    public void release(long nanos, boolean drop) {
+        inFlight.decrementAndGet();
+        if (drop) {
+            dropped.increment();
+            limit = Math.max(minLimit, limit * DROP_FACTOR);
+        } else {
+            windowNanos.add(nanos);
+            windowSamples.increment();
+            maybeCloseWindow();
+        }
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                slotFreed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current >= windowPeak.get()) {
+                    windowPeak.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void maybeCloseWindow() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start < WINDOW_NANOS || windowSamples.sum() < MIN_WINDOW_SAMPLES || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long samples = windowSamples.sumThenReset();
+        double shortNanos = (double) windowNanos.sumThenReset() / Math.max(1, samples);
+        int peak = windowPeak.getAndSet(inFlight.get());
+        lastWindowNanos = shortNanos;
+        if (baselineNanos == 0) {
+            baselineNanos = shortNanos;
+            return;
+        }
+        // Follows drops at once but rises slowly, so sustained overload does not become the new normal
+        baselineNanos = shortNanos < baselineNanos ? shortNanos : baselineNanos + (shortNanos - baselineNanos) * BASELINE_WEIGHT;
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / shortNanos));
+        double estimate = current * gradient;
+        if (gradient == 1.0 && peak >= current / 2) {
+            estimate += Math.sqrt(current); // room to grow, and the limit is actually used
+        }
+        double next = current * (1 - SMOOTHING) + estimate * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() { return (int) limit; }
+    public int getInFlight() { return inFlight.get(); }
+    public int getWaiting() { return waiting.get(); }
+    public double getBaselineNanos() { return baselineNanos; }
+    public double getLastWindowNanos() { return lastWindowNanos; }
+    public long getAdmittedCount() { return admitted.sum(); }
+    public long getQueuedCount() { return queued.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+}
@@ -0,0 +1,87 @@
+package com.nicoceron.nimblev5.util;
+
+import java.util.Arrays;
+
+/**
+ * Append-only posting list of {@code (document ordinal, term frequency)} pairs stored as
+ * variable-length integers in one byte array. Ordinals are delta-encoded, so they must be
+ * appended in increasing order; typical entries take two or three bytes instead of the
+ * dozens a boxed collection would. Not thread-safe.
+ */
+public final class PostingList {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int lastOrdinal = -1;
+    private int documentCount;
+
+    public void add(int ordinal, int frequency) {
+        if (ordinal <= lastOrdinal) {
+            throw new IllegalArgumentException("Ordinals must increase: " + ordinal + " after " + lastOrdinal);
+        }
+        ensureCapacity(10);
+        writeVarInt(ordinal - lastOrdinal);
+        writeVarInt(frequency);
+        lastOrdinal = ordinal;
+        documentCount++;
+    }
+
+    /** Number of entries, including those of documents removed since the last compaction. */
+    public int getDocumentCount() { return documentCount; }
+
+    public long sizeInBytes() { return data.length + 32L; }
+
+    public Cursor cursor() { return new Cursor(); }
+
+    /** Releases unused capacity, e.g. after a bulk load. */
+    public void trim() {
+        if (data.length > length) {
+            data = Arrays.copyOf(data, Math.max(length, 1));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(length + extra, data.length + (data.length >> 1)));
+        }
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /** Forward-only reader; see {@link #next()}. */
+    public final class Cursor {
+        private int position;
+        private int ordinal = -1;
+        private int frequency;
+
+        /** Advances to the next entry; false at the end. */
+        public boolean next() {
+            if (position >= length) {
+                return false;
+            }
+            ordinal += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        public int ordinal() { return ordinal; }
+        public int frequency() { return frequency; }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
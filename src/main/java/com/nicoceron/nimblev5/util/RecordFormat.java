@@ -0,0 +1,302 @@
+package com.nicoceron.nimblev5.util;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming formats for flat records, as used by bulk export and import. Both read and write one
+ * record at a time, so memory use does not depend on the size of the stream.
+ * <ul>
+ * <li>{@link #NDJSON}: one JSON object per line. Numbers are written as JSON numbers, everything
+ * else as strings; null values as JSON null.</li>
+ * <li>{@link #CSV}: RFC 4180, with a header row naming the columns. Fields containing separators,
+ * quotes or line breaks are quoted. A null value is an empty field; an empty string is {@code ""}.</li>
+ * </ul>
+ * Readers return each record as a map from column name to string value (null for null); columns
+ * missing from a record are absent from its map.
+ */
+public enum RecordFormat {
+
+    NDJSON("application/x-ndjson") {
+        @Override
+        public RecordWriter newWriter(OutputStream out, List<String> columns) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            return new RecordWriter() {
+                @Override
+                public void write(Object... values) throws IOException {
+                    writer.write('{');
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writeJsonString(writer, columns.get(i));
+                        writer.write(':');
+                        Object value = values[i];
+                        if (value == null) {
+                            writer.write("null");
+                        } else if (value instanceof Number) {
+                            writer.write(value.toString());
+                        } else {
+                            writeJsonString(writer, value.toString());
+                        }
+                    }
+                    writer.write("}\n");
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+
+        @Override
+        public RecordReader newReader(InputStream in) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+            return new RecordReader() {
+                private long recordNumber;
+
+                @Override
+                public Map<String, String> next() throws IOException {
+                    String line;
+                    do {
+                        line = reader.readLine();
+                        if (line == null) {
+                            return null;
+                        }
+                    } while (line.trim().isEmpty());
+                    recordNumber++;
+                    JsonObject object;
+                    try (JsonReader json = Json.createReader(new StringReader(line))) {
+                        object = json.readObject();
+                    } catch (JsonException | IllegalStateException e) {
+                        throw new IllegalArgumentException("Record " + recordNumber + " is not a JSON object: " + e.getMessage(), e);
+                    }
+                    Map<String, String> record = new HashMap<>();
+                    for (Map.Entry<String, JsonValue> field : object.entrySet()) {
+                        JsonValue value = field.getValue();
+                        record.put(field.getKey(), value.getValueType() == JsonValue.ValueType.NULL ? null
+                                : value instanceof JsonString ? ((JsonString) value).getString() : value.toString());
+                    }
+                    return record;
+                }
+
+                @Override
+                public long getRecordNumber() { return recordNumber; }
+            };
+        }
+    },
+
+    CSV("text/csv") {
+        @Override
+        public RecordWriter newWriter(OutputStream out, List<String> columns) throws IOException {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RecordWriter recordWriter = new RecordWriter() {
+                @Override
+                public void write(Object... values) throws IOException {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        if (values[i] != null) {
+                            writeCsvField(writer, values[i].toString());
+                        }
+                    }
+                    writer.write("\r\n");
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+            recordWriter.write(columns.toArray());
+            return recordWriter;
+        }
+
+        @Override
+        public RecordReader newReader(InputStream in) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                throw new IllegalArgumentException("The CSV stream has no header row.");
+            }
+            return new RecordReader() {
+                private long recordNumber;
+
+                @Override
+                public Map<String, String> next() throws IOException {
+                    List<String> fields = readCsvRecord(reader);
+                    if (fields == null) {
+                        return null;
+                    }
+                    recordNumber++;
+                    if (fields.size() != header.size()) {
+                        throw new IllegalArgumentException("Record " + recordNumber + " has " + fields.size()
+                                + " fields, the header has " + header.size() + ".");
+                    }
+                    Map<String, String> record = new HashMap<>();
+                    for (int i = 0; i < fields.size(); i++) {
+                        record.put(header.get(i), fields.get(i));
+                    }
+                    return record;
+                }
+
+                @Override
+                public long getRecordNumber() { return recordNumber; }
+            };
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Writes records; nothing reaches the stream before the buffer fills or {@link #flush} is called. */
+    public interface RecordWriter {
+
+        /** Writes one record; {@code values} are in the order of the writer's columns. */
+        void write(Object... values) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    public interface RecordReader {
+
+        /** The next record, or null at the end of the stream. */
+        Map<String, String> next() throws IOException;
+
+        /** 1-based number of the record last returned, for error messages. */
+        long getRecordNumber();
+    }
+
+    private final String contentType;
+
+    RecordFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() { return contentType; }
+
+    public abstract RecordWriter newWriter(OutputStream out, List<String> columns) throws IOException;
+
+    public abstract RecordReader newReader(InputStream in) throws IOException;
+
+    /** Case-insensitive lookup by name, e.g. of a request parameter. */
+    public static RecordFormat of(String name) {
+        for (RecordFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name + " (expected ndjson or csv)");
+    }
+
+    private static void writeJsonString(BufferedWriter writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static void writeCsvField(BufferedWriter writer, String value) throws IOException {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Reads one CSV record, which may span lines inside quoted fields. Returns null at the end of
+     * the stream. Unquoted empty fields are returned as null.
+     */
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        while (c == '\r' || c == '\n') { // blank lines
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted CSV field.");
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+                if (c != ',') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    return fields;
+                }
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
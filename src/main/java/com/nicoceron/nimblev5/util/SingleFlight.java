@@ -0,0 +1,132 @@
+package com.nicoceron.nimblev5.util;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the loader, and
+ * callers arriving while it runs wait for and share its result (or its exception). A successful
+ * result is also handed to callers arriving within {@code reuseNanos} after it completed; failures
+ * are never reused. This is not a cache: nothing outlives the reuse window, which is meant to be
+ * a few milliseconds.
+ * <p>
+ * All callers get the same result object, so it must not be modified unless the caller copies it.
+ */
+public final class SingleFlight<K, V> {
+
+    private static final int SWEEP_INTERVAL = 256; // executions between sweeps of expired results
+
+    private final long reuseNanos;
+    private final ObjIntConsumer<K> onCollapsed; // (key, callers sharing the execution), called when a run ends
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicInteger executionsSinceSweep = new AtomicInteger();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    private static final class Flight<V> {
+
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final AtomicInteger callers = new AtomicInteger(1);
+        volatile long reusableUntilNanos; // set before the result completes
+    }
+
+    public SingleFlight(long reuseNanos, ObjIntConsumer<K> onCollapsed) {
+        if (reuseNanos < 0) {
+            throw new IllegalArgumentException("Reuse window must not be negative.");
+        }
+        this.reuseNanos = reuseNanos;
+        this.onCollapsed = onCollapsed;
+    }
+
+    /** The result of {@code loader} for {@code key}, run by this caller or shared with another. */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        calls.increment();
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight == null) {
+                Flight<V> own = new Flight<>();
+                if (flights.putIfAbsent(key, own) == null) {
+                    return run(key, own, loader);
+                }
+                continue; // lost the race; join the winner
+            }
+            if (!flight.result.isDone()) {
+                shared.increment();
+                flight.callers.incrementAndGet();
+                return await(flight);
+            }
+            if (!flight.result.isCompletedExceptionally() && System.nanoTime() - flight.reusableUntilNanos < 0) {
+                reused.increment();
+                flight.callers.incrementAndGet();
+                return flight.result.getNow(null);
+            }
+            flights.remove(key, flight); // expired
+        }
+    }
+
+    /** Drops the key's result, so that the next call runs the loader. A run in progress still completes for those waiting on it. */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    private V run(K key, Flight<V> flight, Callable<V> loader) throws Exception {
+        executions.increment();
+        V value;
+        try {
+            value = loader.call();
+        } catch (Throwable t) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(t);
+            onCollapsed.accept(key, flight.callers.get());
+            throw t;
+        }
+        flight.reusableUntilNanos = System.nanoTime() + reuseNanos;
+        flight.result.complete(value);
+        if (reuseNanos == 0) {
+            flights.remove(key, flight);
+        }
+        onCollapsed.accept(key, flight.callers.get());
+        if (executionsSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            executionsSinceSweep.set(0);
+            sweep();
+        }
+        return value;
+    }
+
+    private static <V> V await(Flight<V> flight) throws Exception {
+        try {
+            return flight.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Iterator<Flight<V>> it = flights.values().iterator(); it.hasNext(); ) {
+            Flight<V> flight = it.next();
+            if (flight.result.isDone() && now - flight.reusableUntilNanos >= 0) {
+                it.remove();
+            }
+        }
+    }
+
+    public long getCallCount() { return calls.sum(); }
+    public long getExecutionCount() { return executions.sum(); }
+    public long getSharedCount() { return shared.sum(); }
+    public long getReusedCount() { return reused.sum(); }
+}
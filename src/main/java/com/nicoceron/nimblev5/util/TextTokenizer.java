@@ -0,0 +1,49 @@
+package com.nicoceron.nimblev5.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits free text into search terms: runs of letters and digits, lower-cased, with accents
+ * removed ("Café" and "cafe" match). Terms shorter than two or longer than
+ * {@value #MAX_TERM_LENGTH} characters are dropped.
+ */
+public final class TextTokenizer {
+
+    public static final int MAX_TERM_LENGTH = 40;
+
+    private TextTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                continue; // accent split off by NFKD
+            }
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(codePoint);
+            } else {
+                flush(term, terms);
+            }
+        }
+        flush(term, terms);
+        return terms;
+    }
+
+    private static void flush(StringBuilder term, List<String> terms) {
+        if (term.length() >= 2 && term.length() <= MAX_TERM_LENGTH) {
+            terms.add(term.toString().toLowerCase(Locale.ROOT));
+        }
+        term.setLength(0);
+    }
+}
@@ -3,6 +3,21 @@ package com.nicoceron.nimblev5.ws;
 import com.nicoceron.nimblev5.domain.Task;
 import com.nicoceron.nimblev5.domain.TaskPriority;
 import com.nicoceron.nimblev5.domain.TaskStatus;
+import com.nicoceron.nimblev5.dto.NewTask;
+import com.nicoceron.nimblev5.dto.TaskChanges;
+import com.nicoceron.nimblev5.dto.TaskPage;
+import com.nicoceron.nimblev5.dto.TaskPatchResult;
+import com.nicoceron.nimblev5.dto.TaskSearch;
+import com.nicoceron.nimblev5.dto.TaskSearchHit;
+import com.nicoceron.nimblev5.dto.TaskSummary;
+import com.nicoceron.nimblev5.dto.TaskView;
+import com.nicoceron.nimblev5.dto.VersionedTaskList;
+import com.nicoceron.nimblev5.metrics.Timed;
+import com.nicoceron.nimblev5.service.Admitted;
+import com.nicoceron.nimblev5.service.Authenticated;
+import com.nicoceron.nimblev5.service.DbBounded;
+import com.nicoceron.nimblev5.service.OperationClass;
+import com.nicoceron.nimblev5.service.ReadCoalescer;
 import com.nicoceron.nimblev5.service.TaskService;
 import jakarta.inject.Inject;
 import jakarta.jws.WebMethod;
@@ -13,14 +28,26 @@ import jakarta.jws.WebService;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+@Timed
+@Admitted // reads unless marked, see AdmissionControl
+@Authenticated // session token from loginUser, see SessionInterceptor
+@DbBounded // shares the database permits with the REST API, see AsyncExecutor
 @WebService(serviceName = "TaskService")
 public class TaskSoapService {
 
+    private static final Logger LOG = Logger.getLogger(TaskSoapService.class.getName());
+
     @Inject
     private TaskService taskService; // NOTE: TaskService must also be updated
 
+    @Inject
+    private ReadCoalescer coalescer; // burst-prone per-user reads share one query
+
     // --- Method modified to use java.util.Date ---
+    @Admitted(OperationClass.WRITE)
     @WebMethod
     public Task createTask(@WebParam(name = "userId") Long userId,
                            @WebParam(name = "title") String title,
@@ -39,6 +66,7 @@ public class TaskSoapService {
     }
 
     // --- Method without dueDate (no changes needed here) ---
+    @Admitted(OperationClass.WRITE)
     @WebMethod(operationName = "createTaskWithoutDate")
     public Task createTaskWithoutDate(
             @WebParam(name = "userId") Long userId,
@@ -53,6 +81,16 @@ public class TaskSoapService {
         return taskService.createTask(userId, title, description, null, priority);
     }
 
+    /**
+     * Creates many tasks, possibly for different users, in a single transaction.
+     * Returns the new task IDs in the same order as the input.
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public List<Long> createTasks(@WebParam(name = "task") List<NewTask> tasks) {
+        return taskService.createTasks(tasks);
+    }
+
     @WebMethod
     public Task getTaskById(@WebParam(name = "taskId") Long taskId) {
         return taskService.findTaskById(taskId)
@@ -61,10 +99,110 @@ public class TaskSoapService {
 
     @WebMethod
     public List<Task> getTasksForUser(@WebParam(name = "userId") Long userId) {
-        return taskService.findTasksByUserId(userId);
+        return coalescer.findTasksByUserId(userId);
+    }
+
+    /**
+     * Lean alternative to getTaskById: only the task's own columns plus the owner's ID,
+     * read as a projection instead of a managed entity.
+     */
+    @WebMethod
+    public TaskView getTaskViewById(@WebParam(name = "taskId") Long taskId) {
+        return taskService.findTaskViewById(taskId)
+                .orElse(null);
+    }
+
+    /**
+     * Lean alternative to getTasksForUser, in the same order. See {@link #getTaskViewById}.
+     */
+    @WebMethod
+    public List<TaskView> getTaskViewsForUser(@WebParam(name = "userId") Long userId) {
+        return coalescer.findTaskViewsByUserId(userId);
+    }
+
+    /**
+     * Conditional getTaskViewsForUser for polling clients. Pass the {@code versionTag} of the
+     * previous response as {@code ifNoneMatch} (omit it on first use); while nothing of the user
+     * has changed the answer is {@code notModified} with no tasks, and no query is run.
+     */
+    @WebMethod
+    public VersionedTaskList getTaskViewsForUserIfModified(@WebParam(name = "userId") Long userId,
+                                                           @WebParam(name = "ifNoneMatch") String ifNoneMatch) {
+        return taskService.findTaskViewsByUserIdIfModified(userId, ifNoneMatch);
+    }
+
+    /**
+     * Pages through a user's tasks without loading them all at once. Omit {@code pageToken} for
+     * the first page, then send back the {@code nextPageToken} of the previous response.
+     */
+    @WebMethod
+    public TaskPage getTasksForUserPage(@WebParam(name = "userId") Long userId,
+                                        @WebParam(name = "pageSize") Integer pageSize,
+                                        @WebParam(name = "pageToken") String pageToken) {
+        if (userId == null) throw new IllegalArgumentException("User ID is required.");
+        return taskService.findTaskPageByUserId(userId, pageToken, pageSize);
+    }
+
+    /**
+     * Pages through a user's archived tasks, newest first. COMPLETED tasks are moved to the
+     * archive once they have not changed for {@code nimble.archive.retentionDays}; they no longer
+     * appear in the other operations and cannot be modified.
+     */
+    @WebMethod
+    public TaskPage getArchivedTasksPage(@WebParam(name = "userId") Long userId,
+                                         @WebParam(name = "pageSize") Integer pageSize,
+                                         @WebParam(name = "pageToken") String pageToken) {
+        return taskService.findArchivedTaskPage(userId, pageToken, pageSize);
+    }
+
+    /**
+     * Finds a user's tasks by any combination of statuses, priorities, due-date range and title
+     * prefix, sorted by due date or priority. Page with {@code nextPageToken} as for
+     * getTasksForUserPage, sending the same criteria each time.
+     */
+    @WebMethod
+    public TaskPage searchTasks(@WebParam(name = "search") TaskSearch search) {
+        if (search == null || search.getUserId() == null) throw new IllegalArgumentException("User ID is required.");
+        return taskService.searchTasks(search);
+    }
+
+    /**
+     * Ranked full-text search over the words of a user's task titles and descriptions. Every
+     * word of {@code query} must occur; matches in the title weigh more. Case and accents are
+     * ignored.
+     */
+    @WebMethod
+    public List<TaskSearchHit> fullTextSearch(@WebParam(name = "userId") Long userId,
+                                              @WebParam(name = "query") String query,
+                                              @WebParam(name = "maxResults") Integer maxResults) {
+        if (userId == null) throw new IllegalArgumentException("User ID is required.");
+        return taskService.fullTextSearch(userId, query, maxResults);
+    }
+
+    /**
+     * Delta sync: tasks changed and deleted since {@code watermark}, plus the watermark to send
+     * next time. Send no watermark on first use; the response then asks for a full reload and
+     * carries the watermark to continue from.
+     */
+    @WebMethod
+    public TaskChanges getTasksChangedSince(@WebParam(name = "userId") Long userId,
+                                            @WebParam(name = "watermark") Date watermark) {
+        if (userId == null) throw new IllegalArgumentException("User ID is required.");
+        return taskService.getTasksChangedSince(userId, watermark);
+    }
+
+    /**
+     * Task counts by status and priority, plus how many open tasks are past their due date.
+     * Answered from memory after the first call, so dashboards can poll it cheaply.
+     */
+    @WebMethod
+    public TaskSummary getTaskSummary(@WebParam(name = "userId") Long userId) {
+        if (userId == null) throw new IllegalArgumentException("User ID is required.");
+        return taskService.getTaskSummary(userId);
     }
 
     // --- Method modified to use java.util.Date ---
+    @Admitted(OperationClass.WRITE)
     @WebMethod
     public Task updateTask(@WebParam(name = "taskId") Long taskId,
                            @WebParam(name = "title") String title,
@@ -78,13 +216,77 @@ public class TaskSoapService {
         return taskService.updateTask(taskId, title, description, (Timestamp) dueDate, priority, status);
     }
 
+    /**
+     * Changes only the fields that are given (omitted ones keep their value) if the task is still
+     * at {@code version}, as read from {@code TaskView.version}. A concurrent change is reported as
+     * outcome CONFLICT together with the current task, instead of being overwritten.
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public TaskPatchResult patchTask(@WebParam(name = "taskId") Long taskId,
+                                     @WebParam(name = "version") Long version,
+                                     @WebParam(name = "title") String title,
+                                     @WebParam(name = "description") String description,
+                                     @WebParam(name = "dueDate") Date dueDate,
+                                     @WebParam(name = "priority") TaskPriority priority,
+                                     @WebParam(name = "status") TaskStatus status) {
+        return taskService.patchTask(taskId, version, title, description,
+                dueDate != null ? new Timestamp(dueDate.getTime()) : null, priority, status);
+    }
+
+    /**
+     * Opt-in write-behind status/priority change for clients that toggle tasks rapidly: returns
+     * at once and the change is written within about a second, merged with any later change to
+     * the same task. getTaskById and getTaskViewById already show it; lists show it once written.
+     * Returns true if queued, false if it was written synchronously (queue full or disabled).
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public boolean queueTaskUpdate(@WebParam(name = "taskId") Long taskId,
+                                   @WebParam(name = "status") TaskStatus status,
+                                   @WebParam(name = "priority") TaskPriority priority) {
+        return taskService.queueTaskUpdate(taskId, status, priority);
+    }
+
+    /**
+     * Sets the status of all given tasks with one statement, e.g. for "complete all".
+     * Returns the number of tasks updated; unknown IDs are ignored.
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public int updateTaskStatuses(@WebParam(name = "taskId") List<Long> taskIds,
+                                  @WebParam(name = "status") TaskStatus status) {
+        return taskService.updateTaskStatuses(taskIds, status);
+    }
+
+    /**
+     * Deletes all given tasks with one statement. Returns the number of tasks deleted.
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public int deleteTasks(@WebParam(name = "taskId") List<Long> taskIds) {
+        return taskService.deleteTasks(taskIds);
+    }
+
+    /**
+     * Deletes a user's COMPLETED tasks that were last modified before {@code before}.
+     * Returns the number of tasks deleted.
+     */
+    @Admitted(OperationClass.WRITE)
+    @WebMethod
+    public int deleteCompletedTasksBefore(@WebParam(name = "userId") Long userId,
+                                          @WebParam(name = "before") Date before) {
+        return taskService.deleteCompletedTasksBefore(userId, before);
+    }
+
+    @Admitted(OperationClass.WRITE)
     @WebMethod
     public boolean deleteTask(@WebParam(name = "taskId") Long taskId) {
         try {
             taskService.deleteTask(taskId);
             return true;
         } catch (Exception e) {
-            System.err.println("Error deleting task ID " + taskId + ": " + e.getMessage()); // Log error
+            LOG.log(Level.WARNING, "Error deleting task ID " + taskId, e);
             return false;
         }
     }
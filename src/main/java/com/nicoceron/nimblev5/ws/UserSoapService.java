@@ -1,6 +1,15 @@
 package com.nicoceron.nimblev5.ws;
 
 import com.nicoceron.nimblev5.domain.User;
+import com.nicoceron.nimblev5.dto.LoginResult;
+import com.nicoceron.nimblev5.dto.VersionedUser;
+import com.nicoceron.nimblev5.metrics.Timed;
+import com.nicoceron.nimblev5.service.Admitted;
+import com.nicoceron.nimblev5.service.Authenticated;
+import com.nicoceron.nimblev5.service.DbBounded;
+import com.nicoceron.nimblev5.service.OperationClass;
+import com.nicoceron.nimblev5.service.ReadCoalescer;
+import com.nicoceron.nimblev5.service.SessionTokens;
 import com.nicoceron.nimblev5.service.UserService;
 import jakarta.inject.Inject;
 import jakarta.jws.WebMethod;
@@ -9,6 +18,8 @@ import jakarta.jws.WebService;
 import jakarta.jws.soap.SOAPBinding;
 
 import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * SOAP Web Service endpoint for User operations.
@@ -16,17 +27,26 @@ import java.util.Optional;
  * the structure of internal fields (like passwordHash) in the WSDL.
  * This is generally discouraged for security reasons. Use DTOs for better practice.
  */
+@Timed
+@Admitted // reads unless marked, see AdmissionControl
 @WebService(serviceName = "UserService", // The name exposed in the WSDL
         targetNamespace = "http://ws.nimblev5.nicoceron.com/") // Define a namespace
 @SOAPBinding(style = SOAPBinding.Style.DOCUMENT, use = SOAPBinding.Use.LITERAL, parameterStyle = SOAPBinding.ParameterStyle.WRAPPED) // Standard style
 public class UserSoapService {
 
+    private static final Logger LOG = Logger.getLogger(UserSoapService.class.getName());
+
     @Inject
     private UserService userService; // Inject the business logic service
 
+    @Inject
+    private ReadCoalescer coalescer; // concurrent getUserById calls for one user share a lookup
+
+    @Inject
+    private SessionTokens sessions;
+
     /**
      * Registers a new user.
-     * Remember to implement proper password hashing in UserService!
      * WARNING: Returns the User entity. The passwordHash VALUE is nulled out before sending,
      * but the field itself is still exposed in the service contract (WSDL).
      *
@@ -35,6 +55,7 @@ public class UserSoapService {
      * @param plainPassword The user's chosen password (plain text).
      * @return The created User entity with passwordHash set to null, or null if registration fails.
      */
+    @Admitted(OperationClass.LOGIN)
     @WebMethod // Marks this method as a SOAP operation
     public User registerUser(@WebParam(name = "username") String username,
                              @WebParam(name = "email") String email,
@@ -59,28 +80,30 @@ public class UserSoapService {
             return newUser;
 
         } catch (IllegalArgumentException e) {
-            System.err.println("Registration failed: " + e.getMessage());
+            LOG.info("Registration failed: " + e.getMessage());
             // Consider throwing a SOAP Fault Exception
             return null; // Indicate failure
         } catch (Exception e) {
-            System.err.println("Unexpected error during registration: " + e.getMessage());
+            LOG.log(Level.WARNING, "Unexpected error during registration", e);
             // Consider throwing a SOAP Fault Exception
             return null; // Indicate failure
         }
     }
 
     /**
-     * Attempts to log in a user.
+     * Attempts to log in a user and starts a session.
      * WARNING: Returns the User entity upon success. The passwordHash VALUE is nulled out,
      * but the field itself is still exposed in the service contract (WSDL).
      *
      * @param username      The username to log in with.
      * @param plainPassword The password provided by the user.
-     * @return User entity with passwordHash set to null if login is successful, null otherwise.
+     * @return The user (passwordHash set to null) with a session token for the task operations
+     * if login is successful, null otherwise.
      */
+    @Admitted(OperationClass.LOGIN)
     @WebMethod
-    public User loginUser(@WebParam(name = "username") String username,
-                          @WebParam(name = "plainPassword") String plainPassword) {
+    public LoginResult loginUser(@WebParam(name = "username") String username,
+                                 @WebParam(name = "plainPassword") String plainPassword) {
 
         Optional<User> userOptional = userService.loginUser(username, plainPassword);
 
@@ -89,7 +112,8 @@ public class UserSoapService {
             // *** CRITICAL: Null out sensitive fields before returning ***
             loggedInUser.setPasswordHash(null);
             // loggedInUser.setTasks(null); // Example if tasks shouldn't be returned on login
-            return loggedInUser;
+            SessionTokens.Session session = sessions.issue(loggedInUser.getUserId());
+            return new LoginResult(loggedInUser, session.getToken(), session.getExpiresAt());
         } else {
             return null; // Login failed
         }
@@ -103,9 +127,10 @@ public class UserSoapService {
      * @param userId The ID of the user to retrieve.
      * @return User entity with passwordHash set to null, or null if not found.
      */
+    @DbBounded // shares the database permits with the REST API, see AsyncExecutor
     @WebMethod
     public User getUserById(@WebParam(name = "userId") Long userId) {
-        Optional<User> userOptional = userService.findUserById(userId);
+        Optional<User> userOptional = coalescer.findUserById(userId);
 
         if (userOptional.isPresent()) {
             User user = userOptional.get();
@@ -118,5 +143,64 @@ public class UserSoapService {
         }
     }
 
+    /**
+     * Conditional getUserById for polling clients. Pass the {@code versionTag} of the previous
+     * response as {@code ifNoneMatch} (omit it on first use); while the user is unchanged the
+     * answer is {@code notModified} with no user, and no lookup is made. The passwordHash is
+     * nulled out as in getUserById.
+     */
+    @DbBounded
+    @WebMethod
+    public VersionedUser getUserByIdIfModified(@WebParam(name = "userId") Long userId,
+                                               @WebParam(name = "ifNoneMatch") String ifNoneMatch) {
+        VersionedUser result = userService.findUserByIdIfModified(userId, ifNoneMatch);
+        if (result.getUser() != null) {
+            result.getUser().setPasswordHash(null);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a username is still free. Cheap enough to call on every keystroke of a
+     * sign-up form; a final answer is only given by registerUser.
+     *
+     * @param username The username to probe.
+     * @return true if no user has this username, false if it is taken or blank.
+     */
+    @DbBounded
+    @WebMethod
+    public boolean isUsernameAvailable(@WebParam(name = "username") String username) {
+        if (username == null || username.trim().isEmpty()) {
+            return false;
+        }
+        return userService.isUsernameAvailable(username);
+    }
+
+    /**
+     * Deletes a user together with all of their tasks, including archived ones. Needs a session
+     * token of that user, whether or not sessions are otherwise required.
+     *
+     * @param userId The ID of the user to delete.
+     * @return true if the user existed and was deleted, false if there was no such user.
+     */
+    @Authenticated(required = true)
+    @Admitted(OperationClass.WRITE)
+    @DbBounded
+    @WebMethod
+    public boolean deleteUser(@WebParam(name = "userId") Long userId) {
+        return userService.deleteUser(userId);
+    }
+
+    /**
+     * Ends a session: the token is rejected from now on.
+     *
+     * @param sessionToken The token returned by loginUser.
+     * @return true if the token was valid, false otherwise.
+     */
+    @WebMethod
+    public boolean logout(@WebParam(name = "sessionToken") String sessionToken) {
+        return sessions.revoke(sessionToken);
+    }
+
     // Add other user-related web methods as needed
 }
\ No newline at end of file
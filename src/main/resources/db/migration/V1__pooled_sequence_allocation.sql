@@ -0,0 +1,4 @@
+-- Task and User ids are now preallocated in blocks of 50 (allocationSize = 50).
+-- EclipseLink assumes each NEXTVAL reserves a whole block, so the sequences must step by the same amount.
+ALTER SEQUENCE TASK_SEQ INCREMENT BY 50;
+ALTER SEQUENCE USERS_SEQ INCREMENT BY 50;
@@ -0,0 +1,13 @@
+-- Delta sync (getTasksChangedSince) reads a user's tasks by modification time.
+CREATE INDEX TASK_USER_MODIFIED_IX ON TASK (user_id, last_modified_date);
+
+-- Deleted tasks leave a tombstone so clients can drop them locally. Purged after the retention
+-- period (nimble.deltaSync.tombstoneRetentionDays); no foreign keys, the task row is gone.
+CREATE TABLE TASK_TOMBSTONE (
+    task_id      NUMBER(19)   NOT NULL,
+    user_id      NUMBER(19)   NOT NULL,
+    deleted_date TIMESTAMP    DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT TASK_TOMBSTONE_PK PRIMARY KEY (task_id)
+);
+CREATE INDEX TASK_TOMBSTONE_USER_DELETED_IX ON TASK_TOMBSTONE (user_id, deleted_date);
+CREATE INDEX TASK_TOMBSTONE_DELETED_IX ON TASK_TOMBSTONE (deleted_date);
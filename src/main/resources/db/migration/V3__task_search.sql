@@ -0,0 +1,13 @@
+-- Numeric priority for ordering by urgency (the PRIORITY column sorts alphabetically: HIGH, LOW, MEDIUM).
+ALTER TABLE TASK ADD (priority_rank NUMBER(1));
+UPDATE TASK SET priority_rank = CASE priority WHEN 'HIGH' THEN 0 WHEN 'MEDIUM' THEN 1 WHEN 'LOW' THEN 2 END;
+
+-- Access paths of searchTasks. Every search is scoped to one user, so user_id leads each index.
+-- Sorted by due date (the default), optionally filtered by priority:
+CREATE INDEX TASK_USER_DUE_RANK_IX ON TASK (user_id, due_date, priority_rank, task_id);
+-- Sorted by priority, or filtered by a priority set:
+CREATE INDEX TASK_USER_RANK_DUE_IX ON TASK (user_id, priority_rank, due_date, task_id);
+-- Filtered by a status set and due-date range:
+CREATE INDEX TASK_USER_STATUS_DUE_IX ON TASK (user_id, status, due_date);
+-- Title prefix (LIKE 'abc%'):
+CREATE INDEX TASK_USER_TITLE_IX ON TASK (user_id, title);
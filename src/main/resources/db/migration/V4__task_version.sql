@@ -0,0 +1,3 @@
+-- Optimistic locking: every write to a task bumps its version (see Task.version and TaskDao.patch).
+-- Existing rows start at 0; the column is maintained by the application, not by a trigger.
+ALTER TABLE TASK ADD (version NUMBER(19) DEFAULT 0 NOT NULL);
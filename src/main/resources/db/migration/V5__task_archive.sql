@@ -0,0 +1,23 @@
+-- Completed tasks older than nimble.archive.retentionDays are moved here in batches by
+-- TaskArchiver, keeping TASK and its indexes down to the working set. Same columns as TASK;
+-- no foreign key, deleteUser removes a user's archived tasks explicitly.
+CREATE TABLE TASK_ARCHIVE (
+    task_id            NUMBER(19)     NOT NULL,
+    user_id            NUMBER(19)     NOT NULL,
+    title              VARCHAR2(100)  NOT NULL,
+    description        VARCHAR2(1000),
+    due_date           TIMESTAMP,
+    priority           VARCHAR2(10),
+    priority_rank      NUMBER(1),
+    status             VARCHAR2(15),
+    version            NUMBER(19)     NOT NULL,
+    created_date       TIMESTAMP      NOT NULL,
+    last_modified_date TIMESTAMP      NOT NULL,
+    archived_date      TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT TASK_ARCHIVE_PK PRIMARY KEY (task_id)
+);
+-- getArchivedTasks pages through one user's archive by task ID.
+CREATE INDEX TASK_ARCHIVE_USER_IX ON TASK_ARCHIVE (user_id, task_id);
+
+-- The archiver's scan: completed tasks by modification time.
+CREATE INDEX TASK_STATUS_MODIFIED_IX ON TASK (status, last_modified_date);
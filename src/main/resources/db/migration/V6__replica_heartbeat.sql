@@ -0,0 +1,8 @@
+-- A single row that ReplicaMonitor stamps on the primary every two seconds and reads back on the
+-- read replica; the age of the stamp seen there bounds the replica's lag (see ReplicaRouting).
+CREATE TABLE REPLICA_HEARTBEAT (
+    id        NUMBER(1) NOT NULL,
+    beat_time TIMESTAMP NOT NULL,
+    CONSTRAINT REPLICA_HEARTBEAT_PK PRIMARY KEY (id)
+);
+INSERT INTO REPLICA_HEARTBEAT (id, beat_time) VALUES (1, CURRENT_TIMESTAMP);
@@ -0,0 +1,72 @@
+package com.nicoceron.nimblev5.dao;
+
+import com.nicoceron.nimblev5.domain.TaskPriority;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskKeysetCursorTest {
+
+    @Test
+    void roundTripsAllFields() {
+        TaskKeysetCursor cursor = TaskKeysetCursor.decode(
+                new TaskKeysetCursor(new Date(1700000000123L), TaskPriority.MEDIUM, 42L).encode());
+        assertEquals(new Date(1700000000123L), cursor.getDueDate());
+        assertEquals(TaskPriority.MEDIUM, cursor.getPriority());
+        assertEquals(42L, cursor.getTaskId());
+    }
+
+    @Test
+    void roundTripsNullDueDateAndPriority() {
+        TaskKeysetCursor cursor = TaskKeysetCursor.decode(new TaskKeysetCursor(null, null, 7L).encode());
+        assertNull(cursor.getDueDate());
+        assertNull(cursor.getPriority());
+        assertEquals(7L, cursor.getTaskId());
+    }
+
+    @Test
+    void roundTripsEachNullSeparately() {
+        TaskKeysetCursor noDate = TaskKeysetCursor.decode(new TaskKeysetCursor(null, TaskPriority.LOW, 1L).encode());
+        assertNull(noDate.getDueDate());
+        assertEquals(TaskPriority.LOW, noDate.getPriority());
+
+        TaskKeysetCursor noPriority = TaskKeysetCursor.decode(new TaskKeysetCursor(new Date(-5L), null, Long.MAX_VALUE).encode());
+        assertEquals(new Date(-5L), noPriority.getDueDate());
+        assertNull(noPriority.getPriority());
+        assertEquals(Long.MAX_VALUE, noPriority.getTaskId());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new TaskKeysetCursor(new Date(Long.MAX_VALUE), TaskPriority.HIGH, Long.MIN_VALUE).encode();
+        assertEquals(-1, indexOfAny(token, "+/=|"));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> TaskKeysetCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> TaskKeysetCursor.decode(encode("1|HIGH")));
+        assertThrows(IllegalArgumentException.class, () -> TaskKeysetCursor.decode(encode("x|HIGH|1")));
+        assertThrows(IllegalArgumentException.class, () -> TaskKeysetCursor.decode(encode("1|URGENT|1")));
+        assertThrows(IllegalArgumentException.class, () -> TaskKeysetCursor.decode(encode("1|HIGH|")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int indexOfAny(String s, String chars) {
+        for (int i = 0; i < s.length(); i++) {
+            if (chars.indexOf(s.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.nicoceron.nimblev5.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundsContainTheValueWithinAnEighth() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1_000, 1_023, 1_024, 999_999, 1_000_000_007L,
+                Long.MAX_VALUE / 3, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long value : values) {
+            assertBucketHolds(value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            assertBucketHolds((random.nextLong() >>> 1) >>> random.nextInt(63));
+        }
+    }
+
+    @Test
+    void bucketIndexesGrowWithTheValue() {
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "index jumped at " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void quantilesAreWithinTheBucketErrorOfTheExactValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] recorded = new long[50_000];
+        for (int i = 0; i < recorded.length; i++) {
+            recorded[i] = (long) Math.exp(8 + 8 * random.nextDouble()); // ~3 us to ~27 s, spread over many powers of two
+            histogram.record(recorded[i]);
+        }
+        Arrays.sort(recorded);
+        for (double quantile : new double[] {0.01, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = recorded[(int) Math.ceil(quantile * recorded.length) - 1];
+            long reported = histogram.getValueAtQuantile(quantile);
+            assertTrue(reported >= exact, "p" + quantile + " " + reported + " below exact " + exact);
+            assertTrue(reported <= exact + exact / 8, "p" + quantile + " " + reported + " over 12.5% above exact " + exact);
+        }
+        assertEquals(recorded[recorded.length - 1], histogram.getValueAtQuantile(1.0));
+        assertEquals(recorded.length, histogram.getCount());
+    }
+
+    @Test
+    void quantileIsCappedAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        assertEquals(1_000_000, histogram.getValueAtQuantile(0.5));
+        assertEquals(1_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtQuantile(0.99));
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.getValueAtQuantile(1.0));
+    }
+
+    private static void assertBucketHolds(long value) {
+        long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+        assertTrue(upper >= value, "bucket of " + value + " ends below it at " + upper);
+        assertTrue(upper - value <= value / 8, "bucket of " + value + " reaches " + upper);
+    }
+}
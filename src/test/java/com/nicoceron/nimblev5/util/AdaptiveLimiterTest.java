@@ -0,0 +1,110 @@
+package com.nicoceron.nimblev5.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void admitsUpToTheLimitAndRefusesTheRest() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(3, 1, 10, 0, 0);
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release(1_000, false);
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    void shrinksOnEachDropDownToTheMinimum() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 4, 50, 0, 0);
+        assertTrue(limiter.acquire());
+        limiter.release(1_000, true);
+        assertEquals(18, limiter.getLimit());
+
+        int previous = limiter.getLimit();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.acquire());
+            limiter.release(1_000, true);
+            assertTrue(limiter.getLimit() <= previous, "limit grew on a drop");
+            previous = limiter.getLimit();
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(51, limiter.getDroppedCount());
+    }
+
+    @Test
+    void droppedLimitRefusesCallsThatWereAdmittedBefore() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.acquire());
+        }
+        limiter.release(1_000, true); // limit 9, 9 in flight
+        assertFalse(limiter.acquire());
+        limiter.release(1_000, false); // 8 in flight
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    void queuedCallerGetsTheReleasedSlot() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, TimeUnit.SECONDS.toNanos(10));
+        assertTrue(limiter.acquire());
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> acquireQuietly(limiter));
+        while (limiter.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(waiter.isDone());
+        limiter.release(1_000, false);
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getQueuedCount());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    private static boolean acquireQuietly(AdaptiveLimiter limiter) {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Test
+    void queuedCallerIsRefusedAfterTheWait() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(limiter.acquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(1, limiter.getQueuedCount());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    @Test
+    void refusesAtOnceWhenTheQueueIsFull() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0, TimeUnit.SECONDS.toNanos(10));
+        assertTrue(limiter.acquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, limiter.getQueuedCount());
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 0, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 2, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(1, 1, 1, -1, 0));
+    }
+}
@@ -0,0 +1,195 @@
+package com.nicoceron.nimblev5.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SingleFlightTest {
+
+    private static final long NO_REUSE = 0;
+    private static final long LONG_REUSE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        List<Integer> collapsed = new ArrayList<>();
+        SingleFlight<String, Object> flight = new SingleFlight<>(NO_REUSE, (key, callers) -> collapsed.add(callers));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flight.execute("k", () -> {
+                    runs.incrementAndGet();
+                    release.await();
+                    return new Object();
+                })));
+            }
+            awaitShared(flight, 7);
+            Thread.sleep(20); // the last joiner counts itself as a caller just after the shared counter
+            release.countDown();
+            Object first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, flight.getExecutionCount());
+        assertEquals(8, flight.getCallCount());
+        assertEquals(1, collapsed.size());
+        assertEquals(8, collapsed.get(0).intValue());
+    }
+
+    @Test
+    void concurrentCallersShareAFailure() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(LONG_REUSE, (key, callers) -> { });
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> flight.execute("k", () -> {
+                    release.await();
+                    throw new IllegalStateException("boom");
+                })));
+            }
+            awaitShared(flight, 3);
+            release.countDown();
+            for (Future<String> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("expected the loader's exception");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, flight.getExecutionCount());
+    }
+
+    @Test
+    void failuresAreNotReused() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(LONG_REUSE, (key, callers) -> { });
+        assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", flight.execute("k", () -> "ok"));
+        assertEquals(2, flight.getExecutionCount());
+        assertEquals(0, flight.getReusedCount());
+    }
+
+    @Test
+    void successIsReusedWithinTheWindowOnly() throws Exception {
+        SingleFlight<String, Object> reusing = new SingleFlight<>(LONG_REUSE, (key, callers) -> { });
+        Object first = reusing.execute("k", Object::new);
+        assertSame(first, reusing.execute("k", Object::new));
+        assertEquals(1, reusing.getReusedCount());
+
+        SingleFlight<String, Object> expiring = new SingleFlight<>(TimeUnit.MILLISECONDS.toNanos(1), (key, callers) -> { });
+        Object stale = expiring.execute("k", Object::new);
+        Thread.sleep(5);
+        assertNotSame(stale, expiring.execute("k", Object::new));
+        assertEquals(2, expiring.getExecutionCount());
+    }
+
+    @Test
+    void keysDoNotShare() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>(LONG_REUSE, (key, callers) -> { });
+        assertNotSame(flight.execute("a", Object::new), flight.execute("b", Object::new));
+        assertEquals(2, flight.getExecutionCount());
+    }
+
+    @Test
+    void forgetStartsAFreshRunWithoutAbandoningWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(LONG_REUSE, (key, callers) -> { });
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = pool.submit(() -> flight.execute("k", () -> {
+                started.countDown();
+                release.await();
+                return "old";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> waiter = pool.submit(() -> flight.execute("k", () -> "unexpected"));
+            awaitShared(flight, 1);
+
+            flight.forget("k"); // e.g. the row was written while the old read was running
+            assertEquals("new", flight.execute("k", () -> "new"));
+
+            release.countDown();
+            assertEquals("old", owner.get(5, TimeUnit.SECONDS));
+            assertEquals("old", waiter.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        // The old run finishing must not replace the fresh result
+        assertEquals("new", flight.execute("k", () -> "newer"));
+        assertEquals(2, flight.getExecutionCount());
+    }
+
+    @Test
+    void manyRacingCallersNeverRunTheLoaderConcurrently() throws Exception {
+        SingleFlight<Integer, Integer> flight = new SingleFlight<>(NO_REUSE, (key, callers) -> { });
+        AtomicIntegerArray running = new AtomicIntegerArray(4);
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                int key = i % 4;
+                results.add(pool.submit(() -> flight.execute(key, () -> {
+                    if (running.incrementAndGet(key) > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    running.decrementAndGet(key);
+                    return key;
+                })));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 4, results.get(i).get(10, TimeUnit.SECONDS).intValue());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, overlaps.get());
+        assertEquals(20_000, flight.getCallCount());
+        assertEquals(flight.getCallCount(), flight.getExecutionCount() + flight.getSharedCount() + flight.getReusedCount());
+    }
+
+    @Test
+    void rejectsNegativeReuseWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SingleFlight<String, String>(-1, (key, callers) -> { }));
+    }
+
+    private static void awaitShared(SingleFlight<?, ?> flight, long callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getSharedCount() < callers) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("only " + flight.getSharedCount() + " of " + callers + " callers joined");
+            }
+            Thread.sleep(1);
+        }
+    }
+}